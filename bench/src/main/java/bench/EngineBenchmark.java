@@ -0,0 +1,132 @@
+package bench;
+
+import main.GameEngine;
+import main.UserInterface;
+import model.Bitboard;
+import model.Chessboard;
+import model.Player;
+import model.Position;
+import utils.ChessMoveException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a whole turn of the game engine and of the end of game detection
+ * @author Hitsuji
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EngineBenchmark
+{
+	/**
+	 * A game in one of the positions, with the move to play
+	 */
+	@State(Scope.Thread)
+	public static class Game
+	{
+		/** Name of the position (see Positions.java) */
+		@Param({Positions.OPENING, Positions.MIDDLEGAME, Positions.ENDGAME})
+		public String position;
+
+		/** The game */
+		GameEngine engine;
+		/** Start and end of the move */
+		Position start, end;
+
+		/**
+		 * Load the position and the move
+		 */
+		void load()
+		{
+			this.engine = new GameEngine(Positions.fen(this.position));
+			this.engine.setUI(new UserInterface(this.engine));
+			this.engine.addPlayers("White", "Black");
+			int[] move = Positions.move(this.position);
+			this.start = Position.of(move[0], move[1]);
+			this.end = Position.of(move[2], move[3]);
+		}
+	}
+
+	/**
+	 * A new game before each turn, since a turn can't be undone
+	 */
+	public static class FreshGame extends Game
+	{
+		/**
+		 * Reload the game (not measured)
+		 */
+		@Setup(Level.Invocation)
+		public void setup()
+		{
+			this.load();
+		}
+	}
+
+	/**
+	 * A game with the move packed for the board
+	 */
+	public static class BoardGame extends Game
+	{
+		/** The packed move */
+		int move;
+		/** The player to move and its opponent */
+		Player current, enemy;
+
+		/**
+		 * Load the game once
+		 */
+		@Setup(Level.Trial)
+		public void setup()
+		{
+			this.load();
+			Chessboard board = this.engine.getBoard();
+			this.move = board.createMove(this.start.getSquare(), this.end.getSquare(), Bitboard.QUEEN);
+			this.current = this.engine.getCurrentPlayer();
+			this.enemy = (this.current == board.getWhitePlayer() ? board.getBlackPlayer() : board.getWhitePlayer());
+		}
+	}
+
+	/**
+	 * Play one turn : validation, move, notation, check, mate and stalemate detection
+	 * @param game The game
+	 * @return The game (so the turn is not removed)
+	 * @throws ChessMoveException If the move of the position is wrong
+	 */
+	@Benchmark
+	public GameEngine turn(final FreshGame game) throws ChessMoveException
+	{
+		game.engine.turn(game.start, game.end);
+		return game.engine;
+	}
+
+	/**
+	 * Play the move on the board, check if the opponent is mated or stalemated, then undo the move
+	 * @param game The game
+	 * @return true if the opponent can't play
+	 */
+	@Benchmark
+	public boolean isCheckmate(final BoardGame game)
+	{
+		Chessboard board = game.engine.getBoard();
+		board.makeMove(game.move);
+		boolean res = game.engine.isCheckmate(game.enemy, game.current);
+		board.unmakeMove();
+		return res;
+	}
+}
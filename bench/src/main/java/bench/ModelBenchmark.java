@@ -0,0 +1,126 @@
+package bench;
+
+import main.GameEngine;
+import model.Bitboard;
+import model.Chessboard;
+import model.MoveGenerator;
+import model.Move;
+import model.Piece;
+import model.Player;
+import model.Position;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the board queries used to validate a move
+ * @author Hitsuji
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ModelBenchmark
+{
+	/** Name of the position (see Positions.java) */
+	@Param({Positions.OPENING, Positions.MIDDLEGAME, Positions.ENDGAME})
+	public String position;
+
+	/** The board of the position */
+	private Chessboard board;
+	/** The pieces of the player to move */
+	private Piece[] pieces;
+	/** The opponent of the player to move */
+	private Player enemy;
+	/** The 64 squares of the board */
+	private Position[] squares;
+	/** Buffer for the generated moves */
+	private int[] moves;
+
+	/**
+	 * Load the position
+	 */
+	@Setup
+	public void setup()
+	{
+		GameEngine engine = new GameEngine(Positions.fen(this.position));
+		engine.addPlayers("White", "Black");
+		this.board = engine.getBoard();
+		Player player = engine.getCurrentPlayer();
+		int nb = 0;
+		for (int type = 0; type < Bitboard.NB_TYPES; type++) {
+			nb += player.getPieceCount(type);
+		}
+		this.pieces = new Piece[nb];
+		nb = 0;
+		for (int type = 0; type < Bitboard.NB_TYPES; type++) {
+			for (int i = 0; i < player.getPieceCount(type); i++) {
+				this.pieces[nb++] = player.getPiece(type, i);
+			}
+		}
+		this.enemy = (engine.getCurrentPlayer() == this.board.getWhitePlayer() ? this.board.getBlackPlayer() : this.board.getWhitePlayer());
+		this.squares = new Position[64];
+		for (int i = 0; i < 64; i++) {
+			this.squares[i] = Position.of(i);
+		}
+		this.moves = new int[Move.MAX_MOVES];
+	}
+
+	/**
+	 * Ask every piece of the player to move if it can go on every square
+	 * @return The number of possible moves
+	 */
+	@Benchmark
+	public int canMoveTo()
+	{
+		int res = 0;
+		for (Piece piece : this.pieces) {
+			for (Position square : this.squares) {
+				if (piece.canMoveTo(square)) {
+					res++;
+				}
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Check the safety of every square against the opponent
+	 * @return The number of safe squares
+	 */
+	@Benchmark
+	public int safeSquare()
+	{
+		int res = 0;
+		for (Position square : this.squares) {
+			if (this.board.safeSquare(square, this.enemy)) {
+				res++;
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Generate the legal moves without the cache of the board
+	 * <br>It's the work checkSquare used to do by trying each move on the board.
+	 * @return The number of legal moves
+	 */
+	@Benchmark
+	public int legalMoves()
+	{
+		return MoveGenerator.generate(this.board, this.board.getSideToMove(), this.moves);
+	}
+}
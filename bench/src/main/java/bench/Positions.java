@@ -0,0 +1,54 @@
+package bench;
+
+/**
+ * The fixed positions used by the benchmarks, with one move to play in each of them
+ * @author Hitsuji
+ */
+public final class Positions
+{
+	/**
+	 * Disabled default constructor
+	 */
+	private Positions() {}
+
+	/** Names of the positions, to use in the @Param of the benchmarks */
+	public static final String OPENING = "opening", MIDDLEGAME = "middlegame", ENDGAME = "endgame";
+
+	/**
+	 * Get a position from its name
+	 * @param name The name of the position
+	 * @return The position in Forsyth-Edwards Notation
+	 */
+	public static String fen(final String name)
+	{
+		switch (name) {
+		case OPENING: // Ruy Lopez after 3.Bb5
+			return "r1bqkbnr/pppp1ppp/2n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R b KQkq - 3 3";
+		case MIDDLEGAME: // 'Kiwipete', lots of captures, castlings and pins
+			return "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+		case ENDGAME: // Rook and pawns
+			return "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+		default:
+			throw new IllegalArgumentException("Unknown position : " + name);
+		}
+	}
+
+	/**
+	 * Get the move played in a position, as start and end coordinates (x1, y1, x2, y2)
+	 * @param name The name of the position
+	 * @return The coordinates of the move
+	 */
+	public static int[] move(final String name)
+	{
+		switch (name) {
+		case OPENING: // Nf6
+			return new int[] {6, 7, 5, 5};
+		case MIDDLEGAME: // Bxa6
+			return new int[] {4, 1, 0, 5};
+		case ENDGAME: // Rxf4+
+			return new int[] {1, 3, 5, 3};
+		default:
+			throw new IllegalArgumentException("Unknown position : " + name);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package bench;
+
+import model.Chessboard;
+import model.Search;
+import model.TranspositionTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the engine search to a fixed depth, with all the prunings or without one of them
+ * @author Hitsuji
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark
+{
+	/** Name of the position (see Positions.java) */
+	@Param({Positions.OPENING, Positions.MIDDLEGAME, Positions.ENDGAME})
+	public String position;
+
+	/** Pruning disabled ('none' to use all of them, 'all' to disable all of them) */
+	@Param({"none", "nullMove", "lateMoveReductions", "futility", "reverseFutility", "aspiration", "all"})
+	public String disabled;
+
+	/** Depth of the search */
+	@Param({"7"})
+	public int depth;
+
+	/** The search */
+	private Search search;
+	/** The position */
+	private Chessboard board;
+
+	/**
+	 * Create the search and load the position
+	 */
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		this.search = new Search(new TranspositionTable(16));
+		this.search.setDepth(this.depth);
+		this.search.setPruning(Search.ALL_PRUNINGS & ~pruning(this.disabled));
+		this.board = new Chessboard(null, null, Positions.fen(this.position));
+	}
+
+	/**
+	 * Start each search with an empty table, so the searches don't help each other
+	 */
+	@Setup(Level.Invocation)
+	public void clear()
+	{
+		this.search.getTable().clear();
+	}
+
+	/**
+	 * Search the position to the depth
+	 * @return The best move
+	 */
+	@Benchmark
+	public int search()
+	{
+		return this.search.search(this.board);
+	}
+
+	/**
+	 * Get the pruning of a name
+	 * @param name The name of the pruning
+	 * @return The pruning (see Search.setPruning)
+	 */
+	private static int pruning(final String name)
+	{
+		switch (name) {
+		case "nullMove":
+			return Search.NULL_MOVE;
+		case "lateMoveReductions":
+			return Search.LATE_MOVE_REDUCTIONS;
+		case "futility":
+			return Search.FUTILITY;
+		case "reverseFutility":
+			return Search.REVERSE_FUTILITY;
+		case "aspiration":
+			return Search.ASPIRATION;
+		case "all":
+			return Search.ALL_PRUNINGS;
+		default:
+			return 0;
+		}
+	}
+}
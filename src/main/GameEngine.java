@@ -3,7 +3,7 @@ package main;
 import model.*;
 import utils.*;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * The class to manage the game and how it's working
@@ -19,21 +19,67 @@ public class GameEngine {
 	private Player whitePlayer, blackPlayer;
 	/** The player currently playing */
 	private Player currentPlayer;
-	/** An Array of the moves done during the game */
-	private ArrayList<String[]> moves;
+	/** Moves done during the game, 16 bits each (see Move.java), their notation is found by playing them again */
+	private short[] moves;
+	/** Number of moves in moves */
+	private int moveCount;
+	/** Position at the start of the game in Forsyth-Edwards Notation */
+	private String startFen;
 	/** Current state of the game 0 for playing, 1 for a win */
 	private int state;
 	/** Number of turns where nothing happened */
 	private int countNullTurn;
+	/** Array filled with the legal moves of the current player (see Chessboard.getLegalMoves) */
+	private int[] legalMoves;
+	/** Limits of the engine players : depth, number of nodes and time in ms (0 for no limit) */
+	private int engineDepth;
+	private long engineNodes, engineTime;
+	/** Number of threads of the engine players */
+	private int engineThreads;
+	/** true if the engine players search during the turn of a human opponent */
+	private boolean enginePonder;
+	/** Time of each player and time added after each move in ms (0 for no clock) */
+	private long clockTime, clockIncrement;
+	/** Start of the turn of the current player (System.nanoTime) */
+	private long turnStart;
+	/** Opening book of the engine players (null for no book) */
+	private OpeningBook book;
+	/** Endgame tables of the engine players and of the end of the game (null for none) */
+	private Tablebase tablebase;
+
+	/** Name of the players played by the engine */
+	public static final String ENGINE_NAME = "computer";
 
 	/**
 	 * Constructor of the class
 	 */
 	public GameEngine() {
 		this.board = new Chessboard(this.whitePlayer, this.blackPlayer);
-		this.moves = new ArrayList<String[]>();
+		this.moves = new short[64];
+		this.moveCount = 0;
+		this.startFen = Chessboard.START_FEN;
 		this.state = 0;
 		this.countNullTurn = 0;
+		this.legalMoves = new int[Move.MAX_MOVES];
+		this.engineDepth = 0;
+		this.engineNodes = 0;
+		this.engineTime = 1000;
+		this.engineThreads = 1;
+		this.enginePonder = true;
+		this.clockTime = 0;
+		this.clockIncrement = 0;
+		this.book = null;
+		this.tablebase = null;
+	}
+
+	/**
+	 * Constructor of the class starting from a given position
+	 * @param fen The position in Forsyth-Edwards Notation
+	 */
+	public GameEngine(final String fen) {
+		this();
+		this.board = new Chessboard(this.whitePlayer, this.blackPlayer, fen);
+		this.startFen = fen;
 	}
 	
 	/**
@@ -45,6 +91,15 @@ public class GameEngine {
 		return this.state;
 	}
 	
+	/**
+	 * Get the board of the game
+	 * @return The board
+	 */
+	public Chessboard getBoard()
+	{
+		return this.board;
+	}
+	
 	/**
 	 * Gives the current player of the turn
 	 * @return Player
@@ -72,7 +127,47 @@ public class GameEngine {
 		return this.board + "\n\n"
 				+ this.currentPlayer.getName() + "'s turn\n"
 				+ "- Color ==> " + this.currentPlayer.getColor() + "\n"
-				+ "- Total points ==> " + this.currentPlayer.getPoints() + "\n";
+				+ "- Total points ==> " + this.currentPlayer.getPoints() + "\n"
+				+ (this.clockTime > 0 ? "- Time left ==> " + formatTime(this.currentPlayer.getTimeLeft()) + "\n" : "")
+				+ this.hangingInfo()
+				+ this.tablebaseInfo();
+	}
+	
+	/**
+	 * Create a string with the result of the position in the endgame tables
+	 * @return The line of the result, empty if the position is not in the tables
+	 */
+	private String tablebaseInfo()
+	{
+		int result = (this.tablebase != null ? this.tablebase.probe(this.board) : Tablebase.NO_ENTRY);
+		if (result == Tablebase.NO_ENTRY) {
+			return "";
+		}
+		if (result == 0) {
+			return "- Endgame tables ==> draw\n";
+		}
+		return "- Endgame tables ==> " + (result > 0 ? "mate in " + (result + 1) / 2 : "mated in " + (-result - 1) / 2)
+			   + " moves\n";
+	}
+	
+	/**
+	 * Create a string listing the pieces of the current player that the opponent can win (see Chessboard.see)
+	 * @return The line of the hanging pieces, empty if there's none
+	 */
+	private String hangingInfo()
+	{
+		long hanging = this.board.getHangingPieces(this.currentPlayer.getColor());
+		if (hanging == 0) {
+			return "";
+		}
+		StringBuilder res = new StringBuilder("- Hanging pieces ==>");
+		int square;
+		while (hanging != 0) {
+			square = Bitboard.first(hanging);
+			hanging &= hanging - 1;
+			res.append(' ').append(this.board.getPiece(square).getName()).append(' ').append(Position.of(square));
+		}
+		return res.append("\n").toString();
 	}
 	
 	/**
@@ -98,10 +193,172 @@ public class GameEngine {
 	 */
 	public void addPlayers(final String whiteP, final String blackP)
 	{
-		this.whitePlayer = new Player(whiteP, ColorG.WHITE, new Position(4, 0));
-		this.blackPlayer = new Player(blackP, ColorG.BLACK, new Position(4, 7));
-		this.currentPlayer = this.whitePlayer;
+		this.whitePlayer = this.createPlayer(whiteP, ColorG.WHITE, Position.of(4, 0));
+		this.blackPlayer = this.createPlayer(blackP, ColorG.BLACK, Position.of(4, 7));
+		this.currentPlayer = (this.board.getSideToMove() == ColorG.WHITE ? this.whitePlayer : this.blackPlayer);
 		this.board.updatePlayers(this.whitePlayer, this.blackPlayer);
+		this.whitePlayer.setTimeLeft(this.clockTime);
+		this.blackPlayer.setTimeLeft(this.clockTime);
+		this.turnStart = System.nanoTime();
+	}
+	
+	/**
+	 * Create a player, it's played by the engine if its name is ENGINE_NAME
+	 * @param name The name of the player
+	 * @param color The color of the player
+	 * @param kingPos The position of the king of the player
+	 * @return The new player
+	 */
+	private Player createPlayer(final String name, final ColorG color, final Position kingPos)
+	{
+		if (!name.equalsIgnoreCase(ENGINE_NAME)) {
+			return new Player(name, color, kingPos);
+		}
+		EnginePlayer res = new EnginePlayer(name, color, kingPos);
+		res.getSearch().setDepth(this.engineDepth);
+		res.getSearch().setNodes(this.engineNodes);
+		res.getSearch().setTime(this.engineTime);
+		res.getSearch().setThreads(this.engineThreads);
+		res.getSearch().setTablebase(this.tablebase);
+		return res;
+	}
+	
+	/**
+	 * Change the limits of the engine players created after
+	 * @param depth The maximum depth in plies (0 for no limit)
+	 * @param nodes The maximum number of nodes (0 for no limit)
+	 * @param time The maximum time by move in milliseconds (0 for no limit)
+	 */
+	public void setEngineLimits(final int depth, final long nodes, final long time)
+	{
+		this.engineDepth = depth;
+		this.engineNodes = nodes;
+		this.engineTime = time;
+	}
+	
+	/**
+	 * Change the number of threads of the engine players created after
+	 * @param threads The number of threads searching each move
+	 */
+	public void setEngineThreads(final int threads)
+	{
+		this.engineThreads = threads;
+	}
+	
+	/**
+	 * Let the engine players search during the turn of their human opponent (pondering)
+	 * @param ponder true to ponder, false to let the engine wait
+	 */
+	public void setEnginePonder(final boolean ponder)
+	{
+		this.enginePonder = ponder;
+	}
+	
+	/**
+	 * Play with a chess clock, must be called before adding the players
+	 * <br>A player who has no time left when playing loses the game, the engine players share their time
+	 * between their moves.
+	 * @param time The time of each player in milliseconds (0 for no clock)
+	 * @param increment The time added to the clock after each move in milliseconds
+	 */
+	public void setClock(final long time, final long increment)
+	{
+		this.clockTime = time;
+		this.clockIncrement = increment;
+	}
+	
+	/**
+	 * Give an opening book to the engine players, its moves are played without search
+	 * @param book The book (null for no book)
+	 */
+	public void setBook(final OpeningBook book)
+	{
+		this.book = book;
+	}
+	
+	/**
+	 * Give endgame tables to the engine players and to the end of the game, must be called before adding the players
+	 * <br>A position that the tables prove drawn ends the game.
+	 * @param tablebase The tables (null for none)
+	 */
+	public void setTablebase(final Tablebase tablebase)
+	{
+		this.tablebase = tablebase;
+	}
+	
+	/**
+	 * Get the move the engine expects from the current player and searches in the background
+	 * @return The move in coordinate notation (like 'e7e5'), null if no engine is pondering
+	 */
+	public String getPonderMove()
+	{
+		Player enemy = (this.currentPlayer == this.whitePlayer ? this.blackPlayer : this.whitePlayer);
+		if (!(enemy instanceof EnginePlayer) || ((EnginePlayer) enemy).getPonderMove() == Move.NONE) {
+			return null;
+		}
+		return Move.toString(((EnginePlayer) enemy).getPonderMove());
+	}
+	
+	/**
+	 * Stop the pondering of the engine players
+	 */
+	public void stopPondering()
+	{
+		for (Player player : new Player[] {this.whitePlayer, this.blackPlayer}) {
+			if (player instanceof EnginePlayer) {
+				((EnginePlayer) player).stopPondering();
+			}
+		}
+	}
+	
+	/**
+	 * Check if the current player is played by the engine
+	 * @return true if it's the turn of an engine player
+	 */
+	public boolean isEngineTurn()
+	{
+		return this.currentPlayer instanceof EnginePlayer;
+	}
+	
+	/**
+	 * Let the engine choose and play the move of the current player
+	 * @return A message with the move played and the result of the search
+	 * @throws ChessMoveException Error launched if the engine has no move to play
+	 */
+	public String playEngineTurn() throws ChessMoveException
+	{
+		EnginePlayer engine = (EnginePlayer) this.currentPlayer;
+		Player enemy = (engine == this.whitePlayer ? this.blackPlayer : this.whitePlayer);
+		// The pondering of the previous turn is over, whether the move comes from the book or from a search
+		engine.stopPondering();
+		if (this.clockTime > 0) {
+			engine.getSearch().setClock(engine.getTimeLeft(), this.clockIncrement);
+		}
+		// The book answers before any search
+		int move = (this.book != null ? this.book.probe(this.board) : Move.NONE);
+		if (move != Move.NONE) {
+			// No pondering after a book move : no search expects a reply to it
+			Position start = Position.of(Move.getStart(move));
+			Position end = Position.of(Move.getEnd(move));
+			this.turn(start, end, Move.isPromotion(move) ? Move.getPromotionType(move) : -1);
+			return engine.getName() + " played " + Move.toString(move) + " (book)";
+		}
+		
+		move = engine.chooseMove(this.board);
+		if (move == Move.NONE) {
+			throw new ChessMoveException("The engine has no move to play", "", "");
+		}
+		
+		Position start = Position.of(Move.getStart(move));
+		Position end = Position.of(Move.getEnd(move));
+		this.turn(start, end, Move.isPromotion(move) ? Move.getPromotionType(move) : -1);
+		String res = engine.getName() + " played " + Move.toString(move) + " (" + engine.getSearch().getInfo() + ")";
+		
+		// The engine keeps searching while a human thinks
+		if (this.enginePonder && this.state == 0 && !(enemy instanceof EnginePlayer)) {
+			engine.startPondering(this.board);
+		}
+		return res;
 	}
 	
 	/**
@@ -117,48 +374,92 @@ public class GameEngine {
 	}
 
 
+	/**
+	 * Take the time of the turn on the clock of a player, then add the increment
+	 * @param player The player who played
+	 * @return false if the player had no time left
+	 */
+	private boolean useClock(final Player player)
+	{
+		if (this.clockTime <= 0) {
+			return true;
+		}
+		long left = player.getTimeLeft() - (System.nanoTime() - this.turnStart) / 1000000;
+		player.setTimeLeft(left + this.clockIncrement);
+		return left > 0;
+	}
+	
+	/**
+	 * Write a time of the clock
+	 * @param time The time in milliseconds
+	 * @return The time like '4:05.3'
+	 */
+	private static String formatTime(final long time)
+	{
+		long tenths = Math.max(0, time) / 100;
+		return String.format("%d:%02d.%d", tenths / 600, tenths / 10 % 60, tenths % 10);
+	}
+	
 	/**
 	 * Add a move to the moves list
-	 * @param piece The moving piece
-	 * @param capture Boolean to check if a capture occured
-	 * @param check Boolean to check if move put the king in check
-	 * @param promotion Boolean to check if a promotion occured
-	 * @param castleType The castle type (0 : None, 1 : little, else : big)
-	 * @param enPassant Boolean to check if a 'enPassant' occured
-	 * @param oldX Old X position of the moving piece
-	 */
-	private void addMove(final Piece piece, final boolean capture,
-					     final boolean check, final boolean promotion,
-						 final int castleType, final boolean enPassant, final int oldX) {
-		final String notation;
-		if (promotion) {
-			notation = Notation.promotionNotation(piece, capture, check, enPassant, oldX);
-		} else if (castleType != 0) {
-			notation = Notation.castleNotation((castleType == 1 ? true : false), check);
-		} else {
-			notation = Notation.classicNotation(piece, capture, check, enPassant, oldX);
+	 * @param move The move played (see Move.java)
+	 */
+	private void addMove(final int move) {
+		if (this.moveCount == this.moves.length) {
+			this.moves = Arrays.copyOf(this.moves, this.moves.length * 2);
 		}
+		this.moves[this.moveCount++] = (short) move;
+	}
 
-		if (this.currentPlayer.getColor() == ColorG.WHITE) {
-			String[] couple = new String[2];
-			couple[0] = notation;
-			couple[1] = "";
-			this.moves.add(couple);
-		} else {
-			String[] lastCouple = this.moves.get(this.moves.size() - 1);
-			lastCouple[1] = notation;
-		}
+	/**
+	 * Get the number of moves done during the game
+	 * @return The number of moves of both players
+	 */
+	public int getMoveCount()
+	{
+		return this.moveCount;
+	}
+
+	/**
+	 * Get a move done during the game
+	 * @param index The index of the move, 0 for the first one
+	 * @return The move (see Move.java)
+	 */
+	public int getMove(final int index)
+	{
+		return this.moves[index] & 0xFFFF;
+	}
+
+	/**
+	 * Get the position at the start of the game, to play its moves again
+	 * @return The position in Forsyth-Edwards Notation
+	 */
+	public String getStartFen()
+	{
+		return this.startFen;
 	}
 
 	/**
-	 * Create a string containing all the moves
+	 * Create a string containing all the moves, their notation is found by playing them again from the start
 	 * @return The string to display
 	 */
 	public String displayMoves() {
 		StringBuilder res = new StringBuilder("");
-		for (int i = 0; i < this.moves.size(); i++) {
-			String[] couple = this.moves.get(i);
-			res.append("" + (i + 1) + " : " + couple[0] + "\t" + couple[1] + "\n");
+		Chessboard replay = new Chessboard(null, null, this.startFen);
+		int number = 1;
+		if (this.moveCount > 0 && replay.getSideToMove() == ColorG.BLACK) { // Game started with black to move
+			res.append("1 : ...\t");
+		}
+		for (int i = 0; i < this.moveCount; i++) {
+			if (replay.getSideToMove() == ColorG.WHITE) {
+				res.append("" + number + " : " + Notation.playMove(replay, this.getMove(i)) + "\t");
+			} else {
+				res.append(Notation.playMove(replay, this.getMove(i)) + "\n");
+				number++;
+			}
+		}
+		if (replay.getSideToMove() == ColorG.BLACK && this.moveCount > 0) {
+			res.append("\n");
 		}
 		return res + "\n";
 	}
@@ -172,6 +473,7 @@ public class GameEngine {
 		} else {
 			this.currentPlayer = this.whitePlayer;
 		}
+		this.turnStart = System.nanoTime();
 	}
 
 	/**
@@ -195,50 +497,49 @@ public class GameEngine {
 	 * @param attacker       The opponent
 	 * @return true if the player has lost, else false
 	 */
-	private boolean isCheckmate(final Player playerInDanger, final Player attacker) {
-		Position targetPos;
-		boolean res;
-
-		for (Piece currentPiece : playerInDanger.getPieces()) {
-			
-			for (int x = 0; x < 8; x++) {
-				for (int y = 0; y < 8; y++) {
-					targetPos = new Position(x, y);
+	public boolean isCheckmate(final Player playerInDanger, final Player attacker) {
+		return !this.board.hasLegalMove(playerInDanger.getColor());
+	}
 
-					if (currentPiece.canMoveTo(targetPos)) {
-						
-						if (currentPiece.getSymbol() == Symbol.WHITE_KING ||
-							currentPiece.getSymbol() == Symbol.BLACK_KING) {
-							
-							res = this.board.checkSquare(targetPos, currentPiece, attacker);
-						} else {
-							res = this.board.checkSquare(playerInDanger.getKingPos(), currentPiece, targetPos,
-									attacker);
-						}
+	/**
+	 * Get the number of legal moves of the current player
+	 * 
+	 * @return The number of moves
+	 */
+	public int getLegalMoveCount() {
+		return this.board.getLegalMoves(this.currentPlayer.getColor(), this.legalMoves);
+	}
 
-						if (res) {
-							
-							return false;
-						}
-					}
-				}
+	/**
+	 * Find a move in the legal moves of the current player
+	 * 
+	 * @param start     The starting square
+	 * @param end       The ending square
+	 * @param promotion The type of the new piece for a promotion (see Bitboard.java), -1 for any type
+	 * @return The packed move (Move.NONE if it's not legal)
+	 */
+	private int findLegalMove(final int start, final int end, final int promotion) {
+		int nb = this.board.getLegalMoves(this.currentPlayer.getColor(), this.legalMoves);
+		int move;
+		for (int i = 0; i < nb; i++) {
+			move = this.legalMoves[i];
+			if (Move.getStart(move) == start && Move.getEnd(move) == end
+				&& (promotion < 0 || !Move.isPromotion(move) || Move.getPromotionType(move) == promotion)) {
+				return move;
 			}
 		}
-		return true;
+		return Move.NONE;
 	}
 
 	/**
 	 * Promote a pawn
 	 * 
-	 * @param oldPawn The pawn to promote
-	 * @return Return the piece that will replace the pawn
+	 * @param pos The position reached by the pawn
+	 * @return Return the type of the piece that will replace the pawn (see Bitboard.java)
 	 */
-	private Piece doPromotion(final Piece oldPawn) {
+	private int doPromotion(final Position pos) {
 		char choice;
 		String inputUser;
-		Player player = oldPawn.getPlayer();
-		Position pos = oldPawn.getPosition();
-		ColorG color = oldPawn.getColor();
 
 		while (true) {
 			inputUser = this.ui.askPromotion(pos).toUpperCase();
@@ -249,13 +550,13 @@ public class GameEngine {
 
 			switch (choice) {
 			case 'N':
-				return new Knight(this.board, pos, color, player, 1);
+				return Bitboard.KNIGHT;
 			case 'B':
-				return new Bishop(this.board, pos, color, player, 1);
+				return Bitboard.BISHOP;
 			case 'R':
-				return new Rook(this.board, pos, color, player, 1);
+				return Bitboard.ROOK;
 			case 'Q':
-				return new Queen(this.board, pos, color, player, 1);
+				return Bitboard.QUEEN;
 			}
 		}
 	}
@@ -269,16 +570,25 @@ public class GameEngine {
 	 *                            impossible move
 	 */
 	public void turn(final Position start, final Position end) throws ChessMoveException {
+		this.turn(start, end, -1);
+	}
+
+	/**
+	 * Manage all the actions of the turn
+	 * 
+	 * @param start         The starting position of the player
+	 * @param end           The ending position of the player
+	 * @param promotionType The type of piece of a promotion (see Bitboard.java), -1 to ask the player
+	 * @throws ChessMoveException Error launched if the player asked for an
+	 *                            impossible move
+	 */
+	private void turn(final Position start, final Position end, final int promotionType) throws ChessMoveException {
 		// All the useful data
 		Piece pieceStart = this.board.getPiece(start);
 		Piece oldPiece;
 		Player currentP = this.currentPlayer;
 		Player enemy = (currentP == this.whitePlayer ? this.blackPlayer : this.whitePlayer);
 		boolean check = false;
-		boolean promotion = false;
-		boolean enPassant = false;
-		int castle = 0;
-		int oldX = -1;
 		char symbolP;
 
 		// Stop the function in case of a wrong move
@@ -287,48 +597,38 @@ public class GameEngine {
 					end.toString());
 		}
 		
-		// Move the piece if it's possible
-		if (pieceStart.canMoveTo(end)) {
-			symbolP = pieceStart.getSymbol();
-			oldPiece = pieceStart.moveTo(end);
-		} else {
+		// Stop the function if the piece can't go there
+		int move = this.findLegalMove(start.getSquare(), end.getSquare(), -1);
+		if (move == Move.NONE) {
 			throw new ChessMoveException("This move is impossible ", start.toString(), end.toString());
 		}
-
-		// If the piece is a pawn, promote it if needed
-		if ((symbolP == Symbol.WHITE_PAWN && end.getY() == 7) || (symbolP == Symbol.BLACK_PAWN && end.getY() == 0)) {
-			oldX = start.getX();			
-			Piece piecePromotion = this.doPromotion(pieceStart);
-			this.board.setPiece(piecePromotion, end);
-			pieceStart = piecePromotion;
-			promotion = true;
-			
-			enPassant = start.getX() != end.getX() && !pieceStart.getPosition().equals(oldPiece.getPosition());
+		symbolP = pieceStart.getSymbol();
+		
+		// The player loses if the time is over
+		if (!this.useClock(currentP)) {
+			this.switchPlayer();
+			this.state = 1;
+			this.ui.setEndMsg(currentP.getName() + " has no time left");
+			return;
 		}
 
-		// If the moving piece is a king check if it was a castle
-		if (symbolP == Symbol.WHITE_KING || symbolP == Symbol.BLACK_KING) {
-			King kingPiece = (King) pieceStart;
-			if (kingPiece.hasDoneLittleCastling()) {
-				castle = 1;
-				kingPiece.resetCastle();
-			} else if (kingPiece.hasDoneBigCastling()) {
-				castle = 2;
-				kingPiece.resetCastle();
-			}
+		// If the piece is a pawn reaching the last line, ask for its promotion
+		if (Move.isPromotion(move)) {
+			move = this.findLegalMove(start.getSquare(), end.getSquare(), (promotionType < 0 ? this.doPromotion(end) : promotionType));
 		}
+
+		// Move the piece (the eaten piece is removed from the enemy list)
+		oldPiece = this.board.makeMove(move);
+		this.addMove(move);
 		
-		// Delete the eaten piece from the enemy list and increase player points
+		// Increase player points
 		if (oldPiece != null) {
-			enemy.rmvPiece(oldPiece);
 			currentP.addPoints(oldPiece.getValue());
 		}
 
 		// Put the player in check if his king is not safe
 		if (!this.board.safeSquare(enemy.getKingPos(), currentP)) {
 			check = true;
-			this.addMove(pieceStart, (oldPiece == null ? false : true), check, promotion, castle, enPassant, oldX);
-
 			if (this.isCheckmate(enemy, currentP)) {
 				this.state = 1;
 				this.ui.setEndMsg(this.currentPlayer + " put the opposing king in checkmate");
@@ -337,7 +637,6 @@ public class GameEngine {
 				this.switchPlayer();
 			}
 		} else {
-			this.addMove(pieceStart, (oldPiece == null ? false : true), check, promotion, castle, enPassant, oldX);
 			this.switchPlayer();
 		}
 
@@ -363,5 +662,11 @@ public class GameEngine {
 		} else {
 			this.countNullTurn = 0;
 		}
+		
+		// No one can win anymore, even if the players keep playing
+		if (this.state == 0 && this.tablebase != null && this.tablebase.probe(this.board) == 0) {
+			this.state = 2;
+			this.ui.setEndMsg("The endgame tables prove that no one can win anymore, the game is declared as null");
+		}
 	}
 }
@@ -1,5 +1,11 @@
 package main;
 
+import model.OpeningBook;
+import model.Tablebase;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
 /**
  * Main class of the project
  * @author erwann
@@ -14,22 +20,74 @@ public class Main
 	
 	/**
 	 * Main class to launch the game
+	 * @param args Args of the project : '-depth N', '-nodes N' and '-time MS' to limit the search of the engine players,
+	 *             '-threads N' to search with several threads, '-clock S' and '-increment S' to play with a clock
+	 *             (in seconds), '-ponder 0' to let the engine wait during the turn of a human,
+	 *             '-book FILE' to play the openings from a Polyglot book (see OpeningBook.java),
+	 *             '-tablebases DIR' to use the endgame tables generated by the Tablebases tool
 	 */
-	public Main()
+	public Main(final String[] args)
 	{
 		this.ge = new GameEngine();
+		this.ge.setEngineLimits(intArg(args, "-depth", 0), intArg(args, "-nodes", 0), intArg(args, "-time", 1000));
+		this.ge.setEngineThreads(intArg(args, "-threads", 1));
+		this.ge.setEnginePonder(intArg(args, "-ponder", 1) != 0);
+		this.ge.setClock(intArg(args, "-clock", 0) * 1000L, intArg(args, "-increment", 0) * 1000L);
+		if (stringArg(args, "-book") != null) {
+			try {
+				this.ge.setBook(new OpeningBook(Path.of(stringArg(args, "-book"))));
+			} catch (final IOException error) {
+				System.out.println("The opening book can't be used : " + error.getMessage());
+			}
+		}
+		if (stringArg(args, "-tablebases") != null) {
+			this.ge.setTablebase(new Tablebase(Path.of(stringArg(args, "-tablebases"))));
+		}
 		this.ui = new UserInterface(this.ge);
 		this.ge.setUI(this.ui);
 		
 		this.ui.launch();
 	}
 	
+	/**
+	 * Get the value of an option in the args
+	 * @param args Args of the project
+	 * @param name The name of the option (like '-depth')
+	 * @param defaultValue The value if the option is not given
+	 * @return The value of the option
+	 */
+	private static int intArg(final String[] args, final String name, final int defaultValue)
+	{
+		for (int i = 0; i < args.length - 1; i++) {
+			if (args[i].equals(name)) {
+				return Integer.parseInt(args[i + 1]);
+			}
+		}
+		return defaultValue;
+	}
+	
+	/**
+	 * Get the text of an option in the args
+	 * @param args Args of the project
+	 * @param name The name of the option (like '-book')
+	 * @return The text of the option, null if it's not given
+	 */
+	private static String stringArg(final String[] args, final String name)
+	{
+		for (int i = 0; i < args.length - 1; i++) {
+			if (args[i].equals(name)) {
+				return args[i + 1];
+			}
+		}
+		return null;
+	}
+	
 	/**
 	 * main function
-	 * @param args Args of the project (no need here)
+	 * @param args Args of the project (see the constructor)
 	 */
 	public static void main(String args[])
 	{
-		new Main();
+		new Main(args);
 	}
 }
\ No newline at end of file
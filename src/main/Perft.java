@@ -0,0 +1,333 @@
+package main;
+
+import model.Chessboard;
+import model.Move;
+import model.MoveGenerator;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Tool to count all the move paths of a position to a given depth (perft)
+ * <br>It checks the move generation against known counts and measures its speed in nodes per second.
+ * The subtrees are counted in parallel, each task on its own copy of the board.
+ * @author Hitsuji
+ */
+public class Perft
+{
+	/** Reference positions (Forsyth-Edwards Notation) */
+	private static final String[] POSITIONS = {
+		Chessboard.START_FEN,
+		"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+		"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+		"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+		"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+		"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"
+	};
+
+	/** Known number of nodes of each reference position from the depth 1 */
+	private static final long[][] EXPECTED = {
+		{20L, 400L, 8902L, 197281L, 4865609L, 119060324L},
+		{48L, 2039L, 97862L, 4085603L, 193690690L},
+		{14L, 191L, 2812L, 43238L, 674624L, 11030083L},
+		{6L, 264L, 9467L, 422333L, 15833292L},
+		{44L, 1486L, 62379L, 2103487L, 89941194L},
+		{46L, 2079L, 89890L, 3894594L, 164075551L}
+	};
+
+	/** Remaining depth from which a subtree is split in one task per move */
+	private static final int SPLIT_DEPTH = 4;
+
+	/** The pool running the tasks */
+	private ForkJoinPool pool;
+	/** Table of the counts of the subtrees already visited (null if not used) */
+	private CountTable table;
+
+	/**
+	 * Constructor of the class
+	 * @param threads The number of threads counting the subtrees
+	 * @param hashSize The size of the table of counts in MB (0 to disable it)
+	 */
+	public Perft(final int threads, final int hashSize)
+	{
+		this.pool = new ForkJoinPool(Math.max(1, threads));
+		this.table = (hashSize > 0 ? new CountTable(hashSize) : null);
+	}
+
+	/**
+	 * Count the move paths of a position
+	 * @param board The position (it's not modified)
+	 * @param depth The number of moves of each path
+	 * @return The number of paths (leaf nodes)
+	 */
+	public long perft(final Chessboard board, final int depth)
+	{
+		long res = 0;
+		for (long nodes : this.divide(board, depth, new int[Move.MAX_MOVES])) {
+			res += nodes;
+		}
+		return res;
+	}
+
+	/**
+	 * Count the move paths after each move of a position
+	 * @param board The position (it's not modified)
+	 * @param depth The number of moves of each path (root move included)
+	 * @param moves Array filled with the legal moves of the position
+	 * @return The number of paths for each move, in the same order as the moves
+	 */
+	public long[] divide(final Chessboard board, final int depth, final int[] moves)
+	{
+		int nb = MoveGenerator.generate(board, board.getSideToMove(), moves);
+		long[] res = new long[nb];
+		if (depth < 1) {
+			return res;
+		}
+
+		ArrayList<PerftTask> tasks = new ArrayList<PerftTask>();
+		for (int i = 0; i < nb; i++) {
+			Chessboard copy = board.copy();
+			copy.makeMove(moves[i]);
+			tasks.add(new PerftTask(copy, depth - 1));
+		}
+		for (PerftTask task : tasks) {
+			this.pool.execute(task);
+		}
+		for (int i = 0; i < nb; i++) {
+			res[i] = tasks.get(i).join();
+		}
+		return res;
+	}
+
+	/**
+	 * Stop the threads of the tool
+	 */
+	public void shutdown()
+	{
+		this.pool.shutdown();
+	}
+
+	/**
+	 * Count the move paths of a position in the current thread
+	 * @param board The position
+	 * @param depth The number of moves of each path
+	 * @param moves One array of moves for each depth
+	 * @return The number of paths
+	 */
+	private long count(final Chessboard board, final int depth, final int[][] moves)
+	{
+		if (depth == 0) {
+			return 1;
+		}
+
+		int nb = MoveGenerator.generate(board, board.getSideToMove(), moves[depth]);
+		if (depth == 1) {
+			return nb;
+		}
+
+		long key = 0;
+		if (this.table != null) {
+			key = board.getKey();
+			long nodes = this.table.get(key, depth);
+			if (nodes >= 0) {
+				return nodes;
+			}
+		}
+
+		long res = 0;
+		for (int i = 0; i < nb; i++) {
+			board.makeMove(moves[depth][i]);
+			res += this.count(board, depth - 1, moves);
+			board.unmakeMove();
+		}
+
+		if (this.table != null) {
+			this.table.put(key, depth, res);
+		}
+		return res;
+	}
+
+	/**
+	 * Task counting the paths of one subtree, split again if it's deep enough
+	 */
+	private class PerftTask extends RecursiveTask<Long>
+	{
+		/** Serial number of the class */
+		private static final long serialVersionUID = 1L;
+		/** The position of the subtree (owned by the task) */
+		private Chessboard board;
+		/** The remaining depth */
+		private int depth;
+
+		/**
+		 * Constructor of the class
+		 * @param board The position of the subtree, not shared with other tasks
+		 * @param depth The remaining depth
+		 */
+		PerftTask(final Chessboard board, final int depth)
+		{
+			this.board = board;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute()
+		{
+			if (this.depth < SPLIT_DEPTH) {
+				return Perft.this.count(this.board, this.depth, new int[this.depth + 1][Move.MAX_MOVES]);
+			}
+
+			int[] moves = new int[Move.MAX_MOVES];
+			int nb = MoveGenerator.generate(this.board, this.board.getSideToMove(), moves);
+			ArrayList<PerftTask> tasks = new ArrayList<PerftTask>();
+			for (int i = 0; i < nb; i++) {
+				Chessboard copy = this.board.copy();
+				copy.makeMove(moves[i]);
+				tasks.add(new PerftTask(copy, this.depth - 1));
+			}
+			invokeAll(tasks);
+
+			long res = 0;
+			for (PerftTask task : tasks) {
+				res += task.join();
+			}
+			return res;
+		}
+	}
+
+	/**
+	 * Table of the counts of subtrees, shared by the threads without lock
+	 * <br>Each entry stores the key xor the data, so an entry written by two threads
+	 * at the same time is detected and ignored.
+	 */
+	private static class CountTable
+	{
+		/** Entries : key xor data, then data (count and depth) */
+		private long[] entries;
+		/** Mask to get the index of an entry */
+		private int mask;
+
+		/**
+		 * Constructor of the class
+		 * @param size The size of the table in MB
+		 */
+		CountTable(final int size)
+		{
+			int nb = Integer.highestOneBit(Math.max(1, Math.min(size, 8192) * (1 << 20) / 16));
+			this.entries = new long[nb * 2];
+			this.mask = nb - 1;
+		}
+
+		/**
+		 * Get the count of a subtree
+		 * @param key The key of the position
+		 * @param depth The depth of the subtree
+		 * @return The number of paths or -1 if it's unknown
+		 */
+		long get(final long key, final int depth)
+		{
+			int index = ((int) key & this.mask) << 1;
+			long data = this.entries[index + 1];
+			if ((this.entries[index] ^ data) == key && (data & 0x3F) == depth) {
+				return data >>> 6;
+			}
+			return -1;
+		}
+
+		/**
+		 * Store the count of a subtree
+		 * @param key The key of the position
+		 * @param depth The depth of the subtree
+		 * @param nodes The number of paths
+		 */
+		void put(final long key, final int depth, final long nodes)
+		{
+			int index = ((int) key & this.mask) << 1;
+			long data = (nodes << 6) | depth;
+			this.entries[index] = key ^ data;
+			this.entries[index + 1] = data;
+		}
+	}
+
+	/**
+	 * Run the tool
+	 * <br>'Perft depth [fen] [-threads N] [-hash MB] [-divide]' counts one position,
+	 * 'Perft -check [depth]' counts the reference positions and compares them to the known counts
+	 * @param args Args of the tool
+	 */
+	public static void main(String args[])
+	{
+		int threads = Runtime.getRuntime().availableProcessors();
+		int hash = 0;
+		int depth = 5;
+		boolean divide = false;
+		boolean check = false;
+		String fen = Chessboard.START_FEN;
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-threads")) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-hash")) {
+				hash = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-divide")) {
+				divide = true;
+			} else if (args[i].equals("-check")) {
+				check = true;
+			} else if (args[i].matches("\\d+")) {
+				depth = Integer.parseInt(args[i]);
+			} else {
+				fen = args[i];
+			}
+		}
+
+		Perft perft = new Perft(threads, hash);
+		if (check) {
+			boolean ok = true;
+			for (int i = 0; i < POSITIONS.length; i++) {
+				System.out.println(POSITIONS[i]);
+				for (int d = 1; d <= Math.min(depth, EXPECTED[i].length); d++) {
+					ok &= perft.run(new Chessboard(null, null, POSITIONS[i]), d, EXPECTED[i][d - 1]);
+				}
+			}
+			System.out.println(ok ? "All counts are right" : "Some counts are wrong");
+		} else {
+			Chessboard board = new Chessboard(null, null, fen);
+			if (divide) {
+				int[] moves = new int[Move.MAX_MOVES];
+				long[] counts = perft.divide(board, depth, moves);
+				long total = 0;
+				for (int i = 0; i < counts.length; i++) {
+					System.out.println(Move.toString(moves[i]) + " : " + counts[i]);
+					total += counts[i];
+				}
+				System.out.println("\nMoves : " + counts.length + "\nNodes : " + total);
+			} else {
+				for (int d = 1; d <= depth; d++) {
+					perft.run(board, d, -1);
+				}
+			}
+		}
+		perft.shutdown();
+	}
+
+	/**
+	 * Count a position and display the result and the speed
+	 * @param board The position
+	 * @param depth The depth
+	 * @param expected The known count (-1 if unknown)
+	 * @return false if the count is not the expected one
+	 */
+	private boolean run(final Chessboard board, final int depth, final long expected)
+	{
+		long time = System.nanoTime();
+		long nodes = this.perft(board, depth);
+		double seconds = Math.max(1, System.nanoTime() - time) / 1e9;
+		boolean ok = (expected < 0 || nodes == expected);
+
+		System.out.println(String.format("depth %d : %d nodes, %.3f s, %.0f nodes/s%s",
+										 depth, nodes, seconds, nodes / seconds,
+										 (ok ? "" : " ==> expected " + expected)));
+		return ok;
+	}
+}
@@ -0,0 +1,151 @@
+package main;
+
+import model.PgnGame;
+import model.PgnReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tool to import a PGN file and check its games
+ * <br>The file is read game by game by one thread (see model.PgnReader), the games are replayed on a board by
+ * the other threads. They are passed through a queue of limited size : the reading waits for the replays,
+ * so the memory used doesn't depend on the size of the file.
+ * @author Hitsuji
+ */
+public class PgnImport
+{
+	/** Number of games waiting to be replayed at most */
+	private static final int QUEUE_SIZE = 1024;
+	/** Number of wrong games written in details */
+	private static final int MAX_ERRORS_SHOWN = 10;
+	/** Game put in the queue to stop a thread */
+	private static final PgnGame END = new PgnGame(-1);
+
+	/** Games waiting to be replayed */
+	private BlockingQueue<PgnGame> queue;
+	/** Threads replaying the games */
+	private ExecutorService pool;
+	/** Number of threads replaying the games */
+	private int threads;
+	/** Number of games replayed */
+	private LongAdder games;
+	/** Number of moves replayed */
+	private LongAdder moves;
+	/** Number of games with a wrong move or starting position */
+	private LongAdder errors;
+
+	/**
+	 * Constructor of the class
+	 * @param threads The number of threads replaying the games
+	 * @param queueSize The number of games waiting to be replayed at most
+	 * @throws IllegalArgumentException Error send if a number is not positive
+	 */
+	public PgnImport(final int threads, final int queueSize)
+	{
+		if (threads <= 0 || queueSize <= 0) {
+			throw new IllegalArgumentException("The number of threads and the size of the queue must be positive");
+		}
+		this.queue = new ArrayBlockingQueue<PgnGame>(queueSize);
+		this.threads = threads;
+		this.games = new LongAdder();
+		this.moves = new LongAdder();
+		this.errors = new LongAdder();
+	}
+
+	/**
+	 * Read and replay all the games of a file
+	 * @param path The path of the file
+	 * @throws IOException Error send if the file can't be read
+	 * @throws InterruptedException Error send if the thread is interrupted while waiting for the replays
+	 */
+	public void run(final Path path) throws IOException, InterruptedException
+	{
+		this.pool = Executors.newFixedThreadPool(this.threads, task -> {
+			Thread thread = new Thread(task, "pgn-replay");
+			thread.setDaemon(true);
+			return thread;
+		});
+		for (int i = 0; i < this.threads; i++) {
+			this.pool.execute(this::replayGames);
+		}
+
+		try (PgnReader reader = new PgnReader(path)) {
+			PgnGame game;
+			while ((game = reader.next()) != null) {
+				this.queue.put(game);
+			}
+		} finally {
+			for (int i = 0; i < this.threads; i++) {
+				this.queue.put(END);
+			}
+			this.pool.shutdown();
+			this.pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Replay the games of the queue until the end of the file
+	 */
+	private void replayGames()
+	{
+		PgnGame game;
+		try {
+			while ((game = this.queue.take()) != END) {
+				try {
+					game.replay();
+				} catch (final IllegalArgumentException error) {
+					this.errors.increment();
+					if (this.errors.sum() <= MAX_ERRORS_SHOWN) {
+						System.out.println("Game at the offset " + game.getOffset() + " : " + error.getMessage());
+					}
+				}
+				this.games.increment();
+				this.moves.add(game.getMoves().size());
+			}
+		} catch (final InterruptedException error) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Run the tool
+	 * <br>'PgnImport file [-threads N] [-queue N]' replays all the games of the file and gives the speed
+	 * @param args Args of the tool
+	 */
+	public static void main(String args[])
+	{
+		if (args.length == 0) {
+			System.out.println("Usage : PgnImport file [-threads N] [-queue N]");
+			return;
+		}
+		int threads = Runtime.getRuntime().availableProcessors();
+		int queueSize = QUEUE_SIZE;
+		for (int i = 1; i < args.length - 1; i++) {
+			if (args[i].equals("-threads")) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-queue")) {
+				queueSize = Integer.parseInt(args[++i]);
+			}
+		}
+
+		PgnImport tool = new PgnImport(threads, queueSize);
+		long start = System.nanoTime();
+		try {
+			tool.run(Path.of(args[0]));
+		} catch (final IOException | InterruptedException error) {
+			System.out.println("The file can't be read : " + error.getMessage());
+			return;
+		}
+		long time = Math.max(1, (System.nanoTime() - start) / 1000000);
+		long games = tool.games.sum();
+		System.out.println(games + " games (" + tool.moves.sum() + " moves) in " + time + " ms with " + threads
+						   + " threads : " + games * 1000 / time + " games/s, " + tool.errors.sum() + " wrong games");
+	}
+}
@@ -0,0 +1,78 @@
+package main;
+
+import model.Chessboard;
+import model.Tablebase;
+import model.TablebaseGenerator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Tool to generate the endgame tablebases offline (see model.TablebaseGenerator) and to look at a position
+ * @author Hitsuji
+ */
+public class Tablebases
+{
+	/** Tables generated when no name is given */
+	private static final String[] DEFAULT_TABLES = {"KQK", "KRK", "KPK", "KBNK"};
+
+	/**
+	 * Disabled default constructor
+	 */
+	private Tablebases() {}
+
+	/**
+	 * Run the tool
+	 * <br>'Tablebases directory [names...] [-threads N]' generates the tables (like 'KQK') and the smaller ones
+	 * they need, 'Tablebases directory -probe fen' gives the result of a position
+	 * @param args Args of the tool
+	 */
+	public static void main(String args[])
+	{
+		if (args.length == 0) {
+			System.out.println("Usage : Tablebases directory [names...] [-threads N] | directory -probe fen");
+			return;
+		}
+		Tablebase base = new Tablebase(Path.of(args[0]));
+		int threads = Runtime.getRuntime().availableProcessors();
+		String fen = null;
+		ArrayList<String> names = new ArrayList<String>();
+
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("-threads")) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-probe")) {
+				fen = args[++i];
+			} else {
+				names.add(args[i]);
+			}
+		}
+
+		if (fen != null) {
+			int value = base.probe(new Chessboard(null, null, fen));
+			System.out.println(value == Tablebase.NO_ENTRY ? "Not in the tables (or impossible position)"
+							   : value == 0 ? "Draw"
+							   : value > 0 ? "Mate in " + value + " plies" : "Mated in " + (-value - 1) + " plies");
+			return;
+		}
+		if (names.isEmpty()) {
+			names.addAll(Arrays.asList(DEFAULT_TABLES));
+		}
+
+		TablebaseGenerator generator = new TablebaseGenerator(base, threads);
+		for (String name : names) {
+			long start = System.nanoTime();
+			try {
+				for (String table : generator.generate(name)) {
+					System.out.println(table + " generated");
+				}
+			} catch (final IOException | IllegalArgumentException error) {
+				System.out.println(error.getMessage());
+				return;
+			}
+			System.out.println(name + " done in " + (System.nanoTime() - start) / 1000000 + " ms");
+		}
+	}
+}
@@ -68,7 +68,8 @@ public class UserInterface
 	 */
 	public void launch()
 	{
-		System.out.println("Enter the name of the white and the black player");
+		System.out.println("Enter the name of the white and the black player"
+						 + " (a player named '" + GameEngine.ENGINE_NAME + "' is played by the engine)");
 		this.ge.addPlayers(this.scanner.next(), this.scanner.next());
 		
 		this.loop();
@@ -88,6 +89,20 @@ public class UserInterface
 		while (this.ge.getState() == 0) {
 			System.out.println(this.ge.turnInfo());
 
+			// The engine plays without asking anything
+			if (this.ge.isEngineTurn()) {
+				try {
+					System.out.println(this.ge.playEngineTurn());
+				} catch (final ChessMoveException error) {
+					System.out.println(error.getMessage());
+					break;
+				}
+				continue;
+			}
+			if (this.ge.getPonderMove() != null) {
+				System.out.println("(The engine expects " + this.ge.getPonderMove() + " and already thinks about it)");
+			}
+
 			// The player choose what he wants to do
 			// If it's a wrong choice or just to display continue to loop
 			play = false;
@@ -119,8 +134,8 @@ public class UserInterface
 			// Ask the player to move a piece
 			System.out.println("\n==> Enter which piece you choose and then where it goes");
 			try {
-				start = new Position(this.scanner.next());
-				end = new Position(this.scanner.next());
+				start = Position.of(this.scanner.next());
+				end = Position.of(this.scanner.next());
 			} catch (final IllegalArgumentException error) {
 				System.out.println(error.getMessage());
 				continue;
@@ -134,6 +149,7 @@ public class UserInterface
 			}
 		}
 		
+		this.ge.stopPondering();
 		System.out.println(this.ge.endInfo() + "\n" + this.endMsg);
 		this.scanner.close();
 		System.exit(0);
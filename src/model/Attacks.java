@@ -0,0 +1,343 @@
+package model;
+
+import utils.ColorG;
+
+/**
+ * Precomputed attack tables of every piece (see Bitboard.java for the squares)
+ * <br>Knights, kings and pawns use a simple table by square, rooks and bishops
+ * use magic bitboards : the relevant blockers are multiplied by a magic number
+ * to get the index of the attacks in a shared table.
+ * @author Hitsuji
+ */
+public final class Attacks
+{
+	/**
+	 * Disabled default constructor
+	 */
+	private Attacks() {}
+
+	/** Attacks of a knight from each square */
+	private static final long[] KNIGHT = new long[64];
+	/** Attacks of a king from each square */
+	private static final long[] KING = new long[64];
+	/** Attacks of a pawn of each color from each square */
+	private static final long[][] PAWN = new long[2][64];
+	/** Squares strictly between two aligned squares (empty if not aligned) */
+	private static final long[][] BETWEEN = new long[64][64];
+	/** Whole line (column, line or diagonal) going through two aligned squares */
+	private static final long[][] LINE = new long[64][64];
+
+	/** Relevant blockers of a rook on each square */
+	private static final long[] ROOK_MASK = new long[64];
+	/** Magic number of a rook on each square (found with a random search of sparse numbers) */
+	private static final long[] ROOK_MAGIC = {
+		0xA080001820400080L, 0x0040002000401000L, 0x0180300160008008L, 0x0480040800801001L,
+		0x2A00081084204200L, 0x0480018012003400L, 0x0600010082000428L, 0x420002250C018042L,
+		0x0040800040002080L, 0x000040002000500CL, 0x2002004022001080L, 0x0026002200400810L,
+		0x2000808008000400L, 0x0022000200883104L, 0x2C88808001000200L, 0x1112000080420104L,
+		0x0100908000400020L, 0x0080808020004000L, 0x0008410010200300L, 0x0014808010000801L,
+		0x0080050011004800L, 0x00D1010002080400L, 0xA08004000A300158L, 0x1000120005288244L,
+		0x020C400080248002L, 0x4020411200220082L, 0x8028100080200881L, 0x1210001100090020L,
+		0x005A005200084520L, 0x0080040080020080L, 0x0002000200840148L, 0x440B210A00006884L,
+		0x0880401028800080L, 0x2000802008804000L, 0x2160001041002900L, 0x201020400A001200L,
+		0x8018010009001104L, 0x2480800400800200L, 0x0000010804000210L, 0x0020008042003104L,
+		0x0000802040008000L, 0x0010002000404000L, 0x0001001020010041L, 0x8840100009010022L,
+		0x8048004020040400L, 0x2000040002008080L, 0x0803000200010084L, 0x0010004400820001L,
+		0xA881410720800100L, 0x0008208A00450600L, 0x0000802000100080L, 0x004408A240920200L,
+		0x6000800400080080L, 0x0020040002008080L, 0x8003000A00245500L, 0x0100842081004200L,
+		0x0000201840820102L, 0x0011002040008019L, 0x001181C20020501AL, 0x1C10014488201101L,
+		0x0002002004110802L, 0x0881000204000801L, 0x2000880142100094L, 0x000154050022C082L
+	};
+	/** Shift applied after the multiplication for a rook on each square */
+	private static final int[] ROOK_SHIFT = new int[64];
+	/** Offset of each square in the rook table */
+	private static final int[] ROOK_OFFSET = new int[64];
+	/** Rook attacks of every square and blockers configuration */
+	private static final long[] ROOK_TABLE;
+
+	/** Relevant blockers of a bishop on each square */
+	private static final long[] BISHOP_MASK = new long[64];
+	/** Magic number of a bishop on each square (found with a random search of sparse numbers) */
+	private static final long[] BISHOP_MAGIC = {
+		0x0060040410840210L, 0x4402080210860000L, 0x0004012C010000E8L, 0x0004410023014480L,
+		0x0001114000000009L, 0x8111012010008002L, 0x0241042120E80000L, 0x0484240208240280L,
+		0x4002400448088520L, 0x4010020408060448L, 0x0048080809102000L, 0xA940890401060208L,
+		0x0080040420124000L, 0x1020020210044040L, 0xC882008090101010L, 0x0108190448042400L,
+		0x001102200481080BL, 0x0010804254010C08L, 0x1608084046004210L, 0x1018001501410002L,
+		0x0084001280A02020L, 0x0212003900610420L, 0x0001002044026010L, 0x6006080080410800L,
+		0x0850041A40251401L, 0x94082430A3102200L, 0x0408110012040900L, 0x6310040000440008L,
+		0x011003004A200800L, 0x8C00848018080440L, 0x0494410004010148L, 0x0008510140840100L,
+		0x032A202002121200L, 0x010221100004B020L, 0x4000820100408408L, 0x4AC0200501080108L,
+		0x2120208400808020L, 0x0A02080200204050L, 0x00900200A0820080L, 0x00C500410A520303L,
+		0x8481086004221200L, 0x8080880818002300L, 0x0020209150001800L, 0x0014044208000080L,
+		0x8A00200200800410L, 0x88A204480200A088L, 0x0014514801018200L, 0x00A200E401000080L,
+		0x8081069050A88000L, 0x01020201018808DCL, 0x8100604208113000L, 0x0409200020880100L,
+		0x20C6008903040023L, 0x0121501002882002L, 0x0010500121240800L, 0x0020AA4C00408058L,
+		0x0022240048041000L, 0x2000010861042000L, 0x0002800100411000L, 0x4090000804208825L,
+		0x0080000812320208L, 0xC00008C011620220L, 0x00B4100282780210L, 0x0820021000608480L
+	};
+	/** Shift applied after the multiplication for a bishop on each square */
+	private static final int[] BISHOP_SHIFT = new int[64];
+	/** Offset of each square in the bishop table */
+	private static final int[] BISHOP_OFFSET = new int[64];
+	/** Bishop attacks of every square and blockers configuration */
+	private static final long[] BISHOP_TABLE;
+
+	/** Directions (x, y) of the rook */
+	private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+	/** Directions (x, y) of the bishop */
+	private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+	static {
+		int[][] knightJumps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+		int[][] kingSteps = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+
+		for (int square = 0; square < 64; square++) {
+			KNIGHT[square] = steps(square, knightJumps);
+			KING[square] = steps(square, kingSteps);
+			PAWN[ColorG.WHITE.ordinal()][square] = steps(square, new int[][] {{-1, 1}, {1, 1}});
+			PAWN[ColorG.BLACK.ordinal()][square] = steps(square, new int[][] {{-1, -1}, {1, -1}});
+		}
+
+		ROOK_TABLE = initMagics(ROOK_DIRECTIONS, ROOK_MASK, ROOK_MAGIC, ROOK_SHIFT, ROOK_OFFSET);
+		BISHOP_TABLE = initMagics(BISHOP_DIRECTIONS, BISHOP_MASK, BISHOP_MAGIC, BISHOP_SHIFT, BISHOP_OFFSET);
+
+		for (int a = 0; a < 64; a++) {
+			for (int b = 0; b < 64; b++) {
+				long bitB = Bitboard.bit(b);
+				if ((rook(a, 0L) & bitB) != 0) {
+					BETWEEN[a][b] = rook(a, bitB) & rook(b, Bitboard.bit(a));
+					LINE[a][b] = (rook(a, 0L) & rook(b, 0L)) | Bitboard.bit(a) | bitB;
+				} else if ((bishop(a, 0L) & bitB) != 0) {
+					BETWEEN[a][b] = bishop(a, bitB) & bishop(b, Bitboard.bit(a));
+					LINE[a][b] = (bishop(a, 0L) & bishop(b, 0L)) | Bitboard.bit(a) | bitB;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the squares attacked by a knight
+	 * @param square The square of the knight
+	 * @return The mask of the attacked squares
+	 */
+	public static long knight(final int square)
+	{
+		return KNIGHT[square];
+	}
+
+	/**
+	 * Get the squares attacked by a king
+	 * @param square The square of the king
+	 * @return The mask of the attacked squares
+	 */
+	public static long king(final int square)
+	{
+		return KING[square];
+	}
+
+	/**
+	 * Get the squares attacked by a pawn (the diagonals in front of it)
+	 * @param color The color of the pawn
+	 * @param square The square of the pawn
+	 * @return The mask of the attacked squares
+	 */
+	public static long pawn(final ColorG color, final int square)
+	{
+		return PAWN[color.ordinal()][square];
+	}
+
+	/**
+	 * Get the squares attacked by a rook
+	 * @param square The square of the rook
+	 * @param occupied The occupancy of the board
+	 * @return The mask of the attacked squares (blockers included)
+	 */
+	public static long rook(final int square, final long occupied)
+	{
+		int index = (int) (((occupied & ROOK_MASK[square]) * ROOK_MAGIC[square]) >>> ROOK_SHIFT[square]);
+		return ROOK_TABLE[ROOK_OFFSET[square] + index];
+	}
+
+	/**
+	 * Get the squares attacked by a bishop
+	 * @param square The square of the bishop
+	 * @param occupied The occupancy of the board
+	 * @return The mask of the attacked squares (blockers included)
+	 */
+	public static long bishop(final int square, final long occupied)
+	{
+		int index = (int) (((occupied & BISHOP_MASK[square]) * BISHOP_MAGIC[square]) >>> BISHOP_SHIFT[square]);
+		return BISHOP_TABLE[BISHOP_OFFSET[square] + index];
+	}
+
+	/**
+	 * Get the squares attacked by a queen
+	 * @param square The square of the queen
+	 * @param occupied The occupancy of the board
+	 * @return The mask of the attacked squares (blockers included)
+	 */
+	public static long queen(final int square, final long occupied)
+	{
+		return rook(square, occupied) | bishop(square, occupied);
+	}
+
+	/**
+	 * Get the squares attacked by a piece
+	 * @param color The color of the piece (only used for the pawns)
+	 * @param type The type of the piece (see Bitboard.java)
+	 * @param square The square of the piece
+	 * @param occupied The occupancy of the board
+	 * @return The mask of the attacked squares
+	 */
+	public static long piece(final ColorG color, final int type, final int square, final long occupied)
+	{
+		switch (type) {
+		case Bitboard.PAWN:
+			return pawn(color, square);
+		case Bitboard.KNIGHT:
+			return knight(square);
+		case Bitboard.BISHOP:
+			return bishop(square, occupied);
+		case Bitboard.ROOK:
+			return rook(square, occupied);
+		case Bitboard.QUEEN:
+			return queen(square, occupied);
+		default:
+			return king(square);
+		}
+	}
+
+	/**
+	 * Get the squares strictly between two squares on the same line, column or diagonal
+	 * @param start The first square
+	 * @param end The second square
+	 * @return The mask of the squares between (empty if they are not aligned)
+	 */
+	public static long between(final int start, final int end)
+	{
+		return BETWEEN[start][end];
+	}
+
+	/**
+	 * Get the whole line, column or diagonal going through two squares
+	 * @param start The first square
+	 * @param end The second square
+	 * @return The mask of the line from edge to edge (empty if they are not aligned)
+	 */
+	public static long line(final int start, final int end)
+	{
+		return LINE[start][end];
+	}
+
+	/**
+	 * Create the mask of all the squares reached with one step from a square
+	 * @param square The starting square
+	 * @param steps The possible steps (x, y)
+	 * @return The mask of the reached squares
+	 */
+	private static long steps(final int square, final int[][] steps)
+	{
+		long res = 0L;
+		int x, y;
+		for (int[] step : steps) {
+			x = Bitboard.squareX(square) + step[0];
+			y = Bitboard.squareY(square) + step[1];
+			if (0 <= x && x <= 7 && 0 <= y && y <= 7) {
+				res |= Bitboard.bit(Bitboard.square(x, y));
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Slow computation of the attacks of a slider, walking along each direction
+	 * @param square The square of the slider
+	 * @param occupied The occupancy of the board
+	 * @param directions The directions of the slider
+	 * @return The mask of the attacked squares
+	 */
+	private static long slide(final int square, final long occupied, final int[][] directions)
+	{
+		long res = 0L;
+		int x, y;
+		long bit;
+		for (int[] dir : directions) {
+			x = Bitboard.squareX(square) + dir[0];
+			y = Bitboard.squareY(square) + dir[1];
+			while (0 <= x && x <= 7 && 0 <= y && y <= 7) {
+				bit = Bitboard.bit(Bitboard.square(x, y));
+				res |= bit;
+				if ((occupied & bit) != 0) {
+					break;
+				}
+				x += dir[0];
+				y += dir[1];
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Get the squares where a blocker changes the attacks of a slider (edges excluded)
+	 * @param square The square of the slider
+	 * @param directions The directions of the slider
+	 * @return The mask of the relevant blockers
+	 */
+	private static long relevantMask(final int square, final int[][] directions)
+	{
+		long res = 0L;
+		int x, y;
+		for (int[] dir : directions) {
+			x = Bitboard.squareX(square) + dir[0];
+			y = Bitboard.squareY(square) + dir[1];
+			while (0 <= x + dir[0] && x + dir[0] <= 7 && 0 <= y + dir[1] && y + dir[1] <= 7) {
+				res |= Bitboard.bit(Bitboard.square(x, y));
+				x += dir[0];
+				y += dir[1];
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Fill the attack table of a slider with its magic numbers
+	 * @param directions The directions of the slider
+	 * @param masks The relevant blockers of each square (filled)
+	 * @param magics The magic numbers of each square
+	 * @param shifts The shifts of each square (filled)
+	 * @param offsets The offsets in the table of each square (filled)
+	 * @return The attack table of the slider
+	 */
+	private static long[] initMagics(final int[][] directions, final long[] masks, final long[] magics,
+									 final int[] shifts, final int[] offsets)
+	{
+		int size = 0;
+		for (int square = 0; square < 64; square++) {
+			masks[square] = relevantMask(square, directions);
+			shifts[square] = 64 - Bitboard.count(masks[square]);
+			offsets[square] = size;
+			size += 1 << Bitboard.count(masks[square]);
+		}
+
+		long[] table = new long[size];
+		for (int square = 0; square < 64; square++) {
+			long mask = masks[square];
+			long subset = 0L;
+			int index;
+			long attacks;
+
+			// Enumerate all the subsets of the mask (Carry-Rippler)
+			do {
+				index = offsets[square] + (int) ((subset * magics[square]) >>> shifts[square]);
+				attacks = slide(square, subset, directions);
+				if (table[index] != 0 && table[index] != attacks) {
+					throw new IllegalStateException("Wrong magic number for the square " + square);
+				}
+				table[index] = attacks;
+				subset = (subset - mask) & mask;
+			} while (subset != 0);
+		}
+		return table;
+	}
+}
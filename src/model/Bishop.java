@@ -35,5 +35,10 @@ public class Bishop extends Piece
 		Position piecePos = this.getPosition();
 		return piecePos.manhattanDistance(pos) > 0 && piecePos.isOnSameDiagonal(pos);
 	}
-
+	
+	@Override
+	public int getType()
+	{
+		return Bitboard.BISHOP;
+	}
 }
@@ -0,0 +1,115 @@
+package model;
+
+import utils.ColorG;
+
+/**
+ * Constants and helpers to handle the board as 64 bits masks (one bit per square)
+ * <br>Square index : x + 8 * y, so A1 is the bit 0 and H8 the bit 63
+ * @author Hitsuji
+ */
+public final class Bitboard
+{
+	/**
+	 * Disabled default constructor
+	 */
+	private Bitboard() {}
+
+	/** Type index of the pawn */
+	public static final int PAWN = 0;
+
+	/** Type index of the knight */
+	public static final int KNIGHT = 1;
+
+	/** Type index of the bishop */
+	public static final int BISHOP = 2;
+
+	/** Type index of the rook */
+	public static final int ROOK = 3;
+
+	/** Type index of the queen */
+	public static final int QUEEN = 4;
+
+	/** Type index of the king */
+	public static final int KING = 5;
+
+	/** Number of piece types */
+	public static final int NB_TYPES = 6;
+
+	/** Mask of the first column (A) */
+	public static final long FILE_A = 0x0101010101010101L;
+
+	/** Mask of the first line (1) */
+	public static final long RANK_1 = 0xFFL;
+
+	/**
+	 * Get the square index of a position
+	 * @param x The x position
+	 * @param y The y position
+	 * @return The index of the square (0 to 63)
+	 */
+	public static int square(final int x, final int y)
+	{
+		return x + (y << 3);
+	}
+
+	/**
+	 * Get the x position of a square
+	 * @param square The index of the square
+	 * @return The x position
+	 */
+	public static int squareX(final int square)
+	{
+		return square & 7;
+	}
+
+	/**
+	 * Get the y position of a square
+	 * @param square The index of the square
+	 * @return The y position
+	 */
+	public static int squareY(final int square)
+	{
+		return square >>> 3;
+	}
+
+	/**
+	 * Get the mask containing only one square
+	 * @param square The index of the square
+	 * @return The mask with the bit of the square set
+	 */
+	public static long bit(final int square)
+	{
+		return 1L << square;
+	}
+
+	/**
+	 * Get the index of the mask used for a type of piece of one color
+	 * @param color The color of the piece
+	 * @param type The type of the piece (PAWN, KNIGHT, ...)
+	 * @return The index (0 to 11)
+	 */
+	public static int index(final ColorG color, final int type)
+	{
+		return color.ordinal() * NB_TYPES + type;
+	}
+
+	/**
+	 * Get the index of the first square set in a mask
+	 * @param mask A non empty mask
+	 * @return The index of the lowest square
+	 */
+	public static int first(final long mask)
+	{
+		return Long.numberOfTrailingZeros(mask);
+	}
+
+	/**
+	 * Count the squares set in a mask
+	 * @param mask The mask
+	 * @return The number of squares
+	 */
+	public static int count(final long mask)
+	{
+		return Long.bitCount(mask);
+	}
+}
@@ -1,5 +1,7 @@
 package model;
 
+import java.util.Arrays;
+
 import utils.ColorG;
 
 /**
@@ -8,12 +10,93 @@ import utils.ColorG;
  */
 public class Chessboard
 {
-	/** Two dimensional arrray to represents the board and store the pieces*/
-	private Piece[][] pieces;
+	/** Castling right of the white little castle */
+	public static final int WHITE_LITTLE_CASTLE = 1;
+	/** Castling right of the white big castle */
+	public static final int WHITE_BIG_CASTLE = 2;
+	/** Castling right of the black little castle */
+	public static final int BLACK_LITTLE_CASTLE = 4;
+	/** Castling right of the black big castle */
+	public static final int BLACK_BIG_CASTLE = 8;
+	
+	/** Notation of the starting position (Forsyth-Edwards Notation) */
+	public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+	
+	/** Value of each type of piece given at the start of the game (see Bitboard.java) */
+	private static final int[] VALUES = {1, 3, 3, 5, 9, 0};
+	
+	/** Value of each type of piece for the static exchange evaluation in centipawns (see Bitboard.java) */
+	private static final int[] SEE_VALUES = {100, 300, 300, 500, 900, 20000};
+	
+	/** Castling rights kept when a piece leaves or arrives on each square (king and rook squares) */
+	private static final int[] CASTLING_MASKS = new int[64];
+	
+	static {
+		Arrays.fill(CASTLING_MASKS, 15);
+		CASTLING_MASKS[Bitboard.square(4, 0)] = 15 & ~(WHITE_LITTLE_CASTLE | WHITE_BIG_CASTLE);
+		CASTLING_MASKS[Bitboard.square(7, 0)] = 15 & ~WHITE_LITTLE_CASTLE;
+		CASTLING_MASKS[Bitboard.square(0, 0)] = 15 & ~WHITE_BIG_CASTLE;
+		CASTLING_MASKS[Bitboard.square(4, 7)] = 15 & ~(BLACK_LITTLE_CASTLE | BLACK_BIG_CASTLE);
+		CASTLING_MASKS[Bitboard.square(7, 7)] = 15 & ~BLACK_LITTLE_CASTLE;
+		CASTLING_MASKS[Bitboard.square(0, 7)] = 15 & ~BLACK_BIG_CASTLE;
+	}
+	
+	/** Array of the 64 squares of the board to store the pieces (see Bitboard.square) */
+	private Piece[] pieces;
+	/** Occupancy mask of each type of piece for each color (see Bitboard.index) */
+	private long[] pieceMasks;
+	/** Occupancy mask of each color */
+	private long[] colorMasks;
+	/** Occupancy mask of the whole board */
+	private long occupied;
+	/** Squares attacked by the piece on each square */
+	private long[] attacksFrom;
+	/** Number of pieces of each color attacking each square */
+	private int[][] attackCount;
+	/** Squares attacked by at least one piece of each color */
+	private long[] attackedMasks;
 	/** Which pawn did a 2 sqaures hop in last */
 	private Piece lastPawnHop; 
+	/** Castling rights still available (see WHITE_LITTLE_CASTLE, ...) */
+	private int castlingRights;
+	/** Color of the player who plays the next move */
+	private ColorG sideToMove;
+	/** Zobrist key of the position (see Zobrist.java) */
+	private long key;
+	/** Zobrist key of the pawns only (see PawnTable.java) */
+	private long pawnKey;
+	/** Sum of the middlegame scores of the pieces (see Evaluation.java) */
+	private int middlegameScore;
+	/** Sum of the endgame scores of the pieces */
+	private int endgameScore;
+	/** Phase of the game given by the pieces left (see Evaluation.MAX_PHASE) */
+	private int phase;
+	/** Undo stack : move, castling rights and king square before each move played */
+	private long[] undoStates;
+	/** Undo stack : key of the position before each move played */
+	private long[] undoKeys;
+	/** Undo stack : piece captured by each move */
+	private Piece[] undoCaptured;
+	/** Undo stack : last pawn hop before each move */
+	private Piece[] undoLastPawn;
+	/** Undo stack : pawn replaced by each promotion */
+	private Piece[] undoPromoted;
+	/** Number of moves in the undo stack */
+	private int undoSize;
+	/** Keys of the positions played before the board was copied that the next ones can repeat (see copy) */
+	private long[] history;
 	/** White and Black players in the game */
 	private Player whitePlayer, blackPlayer;
+	/** Counter increased at each change on the board */
+	private long version;
+	/** Legal moves of each color (see MoveGenerator.java) */
+	private int[][] legalMoves;
+	/** Number of legal moves of each color */
+	private int[] legalCount;
+	/** Version of the board used to generate the legal moves of each color */
+	private long[] legalVersion;
+	/** Gains of each capture of the last static exchange evaluation (see see) */
+	private int[] seeGains;
 	
 	/**
 	 * Constructor of the class
@@ -22,11 +105,60 @@ public class Chessboard
 	 */
 	public Chessboard(final Player white, final Player black)
 	{
-		this.pieces = new Piece[8][8];
+		this.initBoard(white, black);
+		this.setPieces(white, black);
+		this.key = this.computeKey();
+	}
+	
+	/**
+	 * Constructor of the class from a position written in Forsyth-Edwards Notation
+	 * @param white The white player
+	 * @param black The black player
+	 * @param fen The position, like 'rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1'
+	 * @throws IllegalArgumentException Error send if the notation is wrong
+	 */
+	public Chessboard(final Player white, final Player black, final String fen)
+	{
+		this.initBoard(white, black);
+		this.loadFen(fen, white, black);
+		this.key = this.computeKey();
+	}
+	
+	/**
+	 * Create an empty board
+	 * @param white The white player
+	 * @param black The black player
+	 */
+	private void initBoard(final Player white, final Player black)
+	{
+		this.pieces = new Piece[64];
+		this.pieceMasks = new long[12];
+		this.colorMasks = new long[2];
+		this.occupied = 0L;
+		this.attacksFrom = new long[64];
+		this.attackCount = new int[2][64];
+		this.attackedMasks = new long[2];
+		this.version = 0;
+		this.legalMoves = new int[2][Move.MAX_MOVES];
+		this.legalCount = new int[2];
+		this.legalVersion = new long[] {-1, -1};
+		this.seeGains = new int[32];
+		this.castlingRights = WHITE_LITTLE_CASTLE | WHITE_BIG_CASTLE | BLACK_LITTLE_CASTLE | BLACK_BIG_CASTLE;
+		this.sideToMove = ColorG.WHITE;
+		this.key = 0L;
+		this.pawnKey = 0L;
+		this.middlegameScore = 0;
+		this.endgameScore = 0;
+		this.phase = 0;
+		this.undoStates = new long[256];
+		this.undoKeys = new long[256];
+		this.undoCaptured = new Piece[256];
+		this.undoLastPawn = new Piece[256];
+		this.undoPromoted = new Piece[256];
+		this.undoSize = 0;
+		this.history = new long[0];
 		this.whitePlayer = white;
 		this.blackPlayer = black;
-		
-		this.setPieces(white, black);
 	}
 	
 	/**
@@ -37,27 +169,172 @@ public class Chessboard
 	private void setPieces(final Player white, final Player black)
 	{
 		for (int i = 0; i < 8; i++) {
-			this.pieces[i][1] = new Pawn(this, new Position(i, 1), ColorG.WHITE, white, 1);
-			this.pieces[i][6] = new Pawn(this, new Position(i, 6), ColorG.BLACK, black, 1);
+			this.setPiece(new Pawn(this, Position.of(i, 1), ColorG.WHITE, white, 1), i, 1);
+			this.setPiece(new Pawn(this, Position.of(i, 6), ColorG.BLACK, black, 1), i, 6);
+		}
+		
+		this.setPiece(new Rook(this, Position.of(0, 0), ColorG.WHITE, white, 5), 0, 0);
+		this.setPiece(new Knight(this, Position.of(1, 0), ColorG.WHITE, white, 3), 1, 0);
+		this.setPiece(new Bishop(this, Position.of(2, 0), ColorG.WHITE, white, 3), 2, 0);
+		this.setPiece(new Queen(this, Position.of(3, 0), ColorG.WHITE, white, 9), 3, 0);
+		this.setPiece(new King(this, Position.of(4, 0), ColorG.WHITE, white, 0), 4, 0);
+		this.setPiece(new Bishop(this, Position.of(5, 0), ColorG.WHITE, white, 3), 5, 0);
+		this.setPiece(new Knight(this, Position.of(6, 0), ColorG.WHITE, white, 3), 6, 0);
+		this.setPiece(new Rook(this, Position.of(7, 0), ColorG.WHITE, white, 5), 7, 0);
+		
+		this.setPiece(new Rook(this, Position.of(0, 7), ColorG.BLACK, black, 5), 0, 7);
+		this.setPiece(new Knight(this, Position.of(1, 7), ColorG.BLACK, black, 3), 1, 7);
+		this.setPiece(new Bishop(this, Position.of(2, 7), ColorG.BLACK, black, 3), 2, 7);
+		this.setPiece(new Queen(this, Position.of(3, 7), ColorG.BLACK, black, 9), 3, 7);
+		this.setPiece(new King(this, Position.of(4, 7), ColorG.BLACK, black, 0), 4, 7);
+		this.setPiece(new Bishop(this, Position.of(5, 7), ColorG.BLACK, black, 3), 5, 7);
+		this.setPiece(new Knight(this, Position.of(6, 7), ColorG.BLACK, black, 3), 6, 7);
+		this.setPiece(new Rook(this, Position.of(7, 7), ColorG.BLACK, black, 5), 7, 7);
+	}
+	
+	/**
+	 * Set the pieces and the state of the game from the Forsyth-Edwards Notation
+	 * @param fen The position
+	 * @param white The white player
+	 * @param black The black player
+	 */
+	private void loadFen(final String fen, final Player white, final Player black)
+	{
+		String[] fields = (fen == null ? new String[0] : fen.trim().split("\\s+"));
+		if (fields.length < 2) {
+			throw new IllegalArgumentException("The position must contain at least the pieces and the side to move");
+		}
+		
+		// Pieces, from the 8th line to the 1st
+		int x = 0, y = 7, type;
+		char c;
+		ColorG color;
+		for (int i = 0; i < fields[0].length(); i++) {
+			c = fields[0].charAt(i);
+			if (c == '/') {
+				x = 0;
+				y--;
+			} else if (Character.isDigit(c)) {
+				x += c - '0';
+			} else {
+				type = "pnbrqk".indexOf(Character.toLowerCase(c));
+				if (type < 0 || x > 7 || y < 0) {
+					throw new IllegalArgumentException("Impossible position : " + fen);
+				}
+				color = (Character.isUpperCase(c) ? ColorG.WHITE : ColorG.BLACK);
+				this.setPiece(createPiece(type, Bitboard.square(x, y), color, (color == ColorG.WHITE ? white : black), VALUES[type]), x, y);
+				x++;
+			}
+		}
+		
+		this.sideToMove = (fields[1].equals("b") ? ColorG.BLACK : ColorG.WHITE);
+		
+		this.castlingRights = 0;
+		if (fields.length > 2) {
+			int index;
+			for (char right : fields[2].toCharArray()) {
+				index = "KQkq".indexOf(right);
+				if (index >= 0) {
+					this.castlingRights |= 1 << index;
+				}
+			}
+		}
+		
+		// The pawn that did the hop is in front of the square given
+		if (fields.length > 3 && !fields[3].equals("-")) {
+			Position passant = Position.of(fields[3]);
+			Piece pawn = this.getPiece(passant.getX(), passant.getY() == 2 ? 3 : 4);
+			if (pawn != null && pawn.getType() == Bitboard.PAWN) {
+				this.lastPawnHop = pawn;
+			}
+		}
+		this.version++;
+	}
+	
+	/**
+	 * Write the position in Forsyth-Edwards Notation
+	 * @return The notation of the position
+	 */
+	public String getFen()
+	{
+		StringBuilder res = new StringBuilder();
+		Piece piece;
+		int empty;
+		
+		for (int y = 7; y >= 0; y--) {
+			empty = 0;
+			for (int x = 0; x < 8; x++) {
+				piece = this.getPiece(x, y);
+				if (piece == null) {
+					empty++;
+					continue;
+				}
+				if (empty > 0) {
+					res.append(empty);
+					empty = 0;
+				}
+				char c = "pnbrqk".charAt(piece.getType());
+				res.append(piece.isWhite() ? Character.toUpperCase(c) : c);
+			}
+			if (empty > 0) {
+				res.append(empty);
+			}
+			if (y > 0) {
+				res.append('/');
+			}
 		}
 		
-		this.pieces[0][0] = new Rook(this, new Position(0, 0), ColorG.WHITE, white, 5);
-		this.pieces[1][0] = new Knight(this, new Position(1, 0), ColorG.WHITE, white, 3);
-		this.pieces[2][0] = new Bishop(this, new Position(2, 0), ColorG.WHITE, white, 3);
-		this.pieces[3][0] = new Queen(this, new Position(3, 0), ColorG.WHITE, white, 9);
-		this.pieces[4][0] = new King(this, new Position(4, 0), ColorG.WHITE, white, 0);
-		this.pieces[5][0] = new Bishop(this, new Position(5, 0), ColorG.WHITE, white, 3);
-		this.pieces[6][0] = new Knight(this, new Position(6, 0), ColorG.WHITE, white, 3);
-		this.pieces[7][0] = new Rook(this, new Position(7, 0), ColorG.WHITE, white, 5);
+		res.append(this.sideToMove == ColorG.WHITE ? " w " : " b ");
+		for (int i = 0; i < 4; i++) {
+			if ((this.castlingRights & (1 << i)) != 0) {
+				res.append("KQkq".charAt(i));
+			}
+		}
+		if (this.castlingRights == 0) {
+			res.append('-');
+		}
 		
-		this.pieces[0][7] = new Rook(this, new Position(0, 7), ColorG.BLACK, black, 5);
-		this.pieces[1][7] = new Knight(this, new Position(1, 7), ColorG.BLACK, black, 3);
-		this.pieces[2][7] = new Bishop(this, new Position(2, 7), ColorG.BLACK, black, 3);
-		this.pieces[3][7] = new Queen(this, new Position(3, 7), ColorG.BLACK, black, 9);
-		this.pieces[4][7] = new King(this, new Position(4, 7), ColorG.BLACK, black, 0);
-		this.pieces[5][7] = new Bishop(this, new Position(5, 7), ColorG.BLACK, black, 3);
-		this.pieces[6][7] = new Knight(this, new Position(6, 7), ColorG.BLACK, black, 3);
-		this.pieces[7][7] = new Rook(this, new Position(7, 7), ColorG.BLACK, black, 5);
+		if (this.lastPawnHop != null) {
+			Position pos = this.lastPawnHop.getPosition();
+			res.append(" " + (char) (pos.getX() + 97) + (pos.getY() == 3 ? 3 : 6));
+		} else {
+			res.append(" -");
+		}
+		return res.append(" 0 1").toString();
+	}
+	
+	/**
+	 * Create an independent copy of the board (with its own players and pieces)
+	 * <br>The undo stack is not copied, the moves played before can't be cancelled on the copy. The keys of the
+	 * positions since the last move that can't be undone are kept, so the copy still sees the repetitions of the game.
+	 * @return The new board
+	 */
+	public Chessboard copy()
+	{
+		Player white = new Player(this.whitePlayer == null ? "White" : this.whitePlayer.getName(), ColorG.WHITE, Position.of(4, 0));
+		Player black = new Player(this.blackPlayer == null ? "Black" : this.blackPlayer.getName(), ColorG.BLACK, Position.of(4, 7));
+		Chessboard res = new Chessboard(white, black, this.getFen());
+		res.updatePlayers(white, black);
+		res.history = this.getRepetitionKeys();
+		return res;
+	}
+	
+	/**
+	 * Get the keys of the positions that the next positions can repeat (see isRepetition)
+	 * @return The keys since the last move that can't be undone, the oldest first
+	 */
+	private long[] getRepetitionKeys()
+	{
+		int first = this.undoSize - 1;
+		while (first >= 0 && !this.isIrreversible(first)) {
+			first--;
+		}
+		if (first >= 0) {
+			return Arrays.copyOfRange(this.undoKeys, first, this.undoSize);
+		}
+		long[] res = Arrays.copyOf(this.history, this.history.length + this.undoSize);
+		System.arraycopy(this.undoKeys, 0, res, this.history.length, this.undoSize);
+		return res;
 	}
 	
 	/**
@@ -68,7 +345,7 @@ public class Chessboard
 	 */
 	public Piece getPiece(final int x, final int y)
 	{
-		return this.pieces[x][y];
+		return this.pieces[Bitboard.square(x, y)];
 	}
 	
 	/**
@@ -78,7 +355,17 @@ public class Chessboard
 	 */
 	public Piece getPiece(final Position pos)
 	{
-		return this.pieces[pos.getX()][pos.getY()];
+		return this.getPiece(pos.getX(), pos.getY());
+	}
+	
+	/**
+	 * Get a piece from the board
+	 * @param square The index of the square (see Bitboard.square)
+	 * @return The piece on the square
+	 */
+	public Piece getPiece(final int square)
+	{
+		return this.pieces[square];
 	}
 	
 	/**
@@ -89,7 +376,127 @@ public class Chessboard
 	 */
 	public void setPiece(final Piece piece, final int x, final int y)
 	{
-		this.pieces[x][y] = piece;
+		this.placePiece(piece, Bitboard.square(x, y));
+	}
+	
+	/**
+	 * Set the piece on a square of the board, the masks, attacks and key are updated
+	 * @param piece The piece to set (null to empty the square)
+	 * @param square The index of the square
+	 */
+	private void placePiece(final Piece piece, final int square)
+	{
+		long bit = Bitboard.bit(square);
+		Piece oldPiece = this.pieces[square];
+		long sliders = 0L;
+		long mask;
+		
+		// The 'enPassant' part of the key depends on the pawns next to the last pawn
+		if (this.lastPawnHop != null) {
+			this.key ^= this.enPassantKey();
+		}
+		this.key ^= Zobrist.piece(oldPiece, square) ^ Zobrist.piece(piece, square);
+		
+		// The sliders going through the square are blocked or freed only if it becomes empty or occupied
+		if ((oldPiece == null) != (piece == null)) {
+			sliders = this.slidersTo(square);
+			for (mask = sliders; mask != 0; mask &= mask - 1) {
+				this.removeAttacks(Bitboard.first(mask));
+			}
+		}
+		
+		if (oldPiece != null) {
+			this.removeAttacks(square);
+			this.pieceMasks[Bitboard.index(oldPiece.getColor(), oldPiece.getType())] &= ~bit;
+			this.colorMasks[oldPiece.getColor().ordinal()] &= ~bit;
+			if (oldPiece.getType() == Bitboard.PAWN) {
+				this.pawnKey ^= Zobrist.piece(oldPiece, square);
+			}
+			this.middlegameScore -= Evaluation.middlegame(oldPiece, square);
+			this.endgameScore -= Evaluation.endgame(oldPiece, square);
+			this.phase -= Evaluation.phase(oldPiece);
+		}
+		if (piece != null) {
+			this.pieceMasks[Bitboard.index(piece.getColor(), piece.getType())] |= bit;
+			this.colorMasks[piece.getColor().ordinal()] |= bit;
+			if (piece.getType() == Bitboard.PAWN) {
+				this.pawnKey ^= Zobrist.piece(piece, square);
+			}
+			this.middlegameScore += Evaluation.middlegame(piece, square);
+			this.endgameScore += Evaluation.endgame(piece, square);
+			this.phase += Evaluation.phase(piece);
+		}
+		
+		this.occupied = this.colorMasks[0] | this.colorMasks[1];
+		this.pieces[square] = piece;
+		
+		if (piece != null) {
+			this.addAttacks(square);
+		}
+		for (mask = sliders; mask != 0; mask &= mask - 1) {
+			this.addAttacks(Bitboard.first(mask));
+		}
+		if (this.lastPawnHop != null) {
+			this.key ^= this.enPassantKey();
+		}
+		this.version++;
+	}
+	
+	/**
+	 * Get the sliders (of both colors) whose attacks go through a square
+	 * @param square The index of the square
+	 * @return The mask of the squares of the sliders
+	 */
+	private long slidersTo(final int square)
+	{
+		long queens = this.pieceMasks[Bitboard.QUEEN] | this.pieceMasks[Bitboard.NB_TYPES + Bitboard.QUEEN];
+		long rooks = this.pieceMasks[Bitboard.ROOK] | this.pieceMasks[Bitboard.NB_TYPES + Bitboard.ROOK] | queens;
+		long bishops = this.pieceMasks[Bitboard.BISHOP] | this.pieceMasks[Bitboard.NB_TYPES + Bitboard.BISHOP] | queens;
+		
+		return (Attacks.rook(square, this.occupied) & rooks) | (Attacks.bishop(square, this.occupied) & bishops);
+	}
+	
+	/**
+	 * Add the attacks of the piece on a square to the attack counts of its color
+	 * @param square The index of the square of the piece
+	 */
+	private void addAttacks(final int square)
+	{
+		Piece piece = this.pieces[square];
+		int color = piece.getColor().ordinal();
+		int[] counts = this.attackCount[color];
+		long attacks = Attacks.piece(piece.getColor(), piece.getType(), square, this.occupied);
+		int target;
+		
+		this.attacksFrom[square] = attacks;
+		while (attacks != 0) {
+			target = Bitboard.first(attacks);
+			attacks &= attacks - 1;
+			if (counts[target]++ == 0) {
+				this.attackedMasks[color] |= Bitboard.bit(target);
+			}
+		}
+	}
+	
+	/**
+	 * Remove the attacks of the piece on a square from the attack counts of its color
+	 * @param square The index of the square of the piece
+	 */
+	private void removeAttacks(final int square)
+	{
+		int color = this.pieces[square].getColor().ordinal();
+		int[] counts = this.attackCount[color];
+		long attacks = this.attacksFrom[square];
+		int target;
+		
+		this.attacksFrom[square] = 0L;
+		while (attacks != 0) {
+			target = Bitboard.first(attacks);
+			attacks &= attacks - 1;
+			if (--counts[target] == 0) {
+				this.attackedMasks[color] &= ~Bitboard.bit(target);
+			}
+		}
 	}
 	
 	/**
@@ -99,7 +506,58 @@ public class Chessboard
 	 */
 	public void setPiece(final Piece piece, final Position pos)
 	{
-		this.setPiece(piece, pos.getX(), pos.getY());
+		this.placePiece(piece, pos.getSquare());
+	}
+	
+	/**
+	 * Get the occupancy mask of a type of piece
+	 * @param color The color of the pieces
+	 * @param type The type of the pieces (see Bitboard.java)
+	 * @return The mask of the squares containing these pieces
+	 */
+	public long getPieceMask(final ColorG color, final int type)
+	{
+		return this.pieceMasks[Bitboard.index(color, type)];
+	}
+	
+	/**
+	 * Get the occupancy mask of a color
+	 * @param color The color of the pieces
+	 * @return The mask of the squares containing a piece of this color
+	 */
+	public long getColorMask(final ColorG color)
+	{
+		return this.colorMasks[color.ordinal()];
+	}
+	
+	/**
+	 * Get the occupancy mask of the board
+	 * @return The mask of all the squares containing a piece
+	 */
+	public long getOccupied()
+	{
+		return this.occupied;
+	}
+	
+	/**
+	 * Get the squares attacked by the pieces of a color
+	 * @param color The color of the attacking pieces
+	 * @return The mask of the squares attacked at least once
+	 */
+	public long getAttackedMask(final ColorG color)
+	{
+		return this.attackedMasks[color.ordinal()];
+	}
+	
+	/**
+	 * Get the number of pieces of a color attacking a square
+	 * @param square The index of the square
+	 * @param color The color of the attacking pieces
+	 * @return The number of attackers
+	 */
+	public int getAttackCount(final int square, final ColorG color)
+	{
+		return this.attackCount[color.ordinal()][square];
 	}
 	
 	/**
@@ -117,7 +575,164 @@ public class Chessboard
 	 */
 	public void setLastPawn(final Piece piece)
 	{
+		this.key ^= this.enPassantKey();
 		this.lastPawnHop = piece;
+		this.key ^= this.enPassantKey();
+		this.version++;
+	}
+	
+	/**
+	 * Get the castling rights still available
+	 * @return The rights (see WHITE_LITTLE_CASTLE, ...)
+	 */
+	public int getCastlingRights()
+	{
+		return this.castlingRights;
+	}
+	
+	/**
+	 * Change the castling rights
+	 * @param rights The new rights (see WHITE_LITTLE_CASTLE, ...)
+	 */
+	public void setCastlingRights(final int rights)
+	{
+		this.key ^= Zobrist.castling(this.castlingRights) ^ Zobrist.castling(rights);
+		this.castlingRights = rights;
+		this.version++;
+	}
+	
+	/**
+	 * Check if a castling is still allowed (the king and the rook never moved)
+	 * @param color The color of the king
+	 * @param little true for the little castling, false for the big
+	 * @return true if the castling is allowed
+	 */
+	public boolean canCastle(final ColorG color, final boolean little)
+	{
+		return (this.castlingRights & castlingRight(color, little)) != 0;
+	}
+	
+	/**
+	 * Remove a castling right
+	 * @param color The color of the king
+	 * @param little true for the little castling, false for the big
+	 */
+	public void disableCastling(final ColorG color, final boolean little)
+	{
+		this.setCastlingRights(this.castlingRights & ~castlingRight(color, little));
+	}
+	
+	/**
+	 * Get the castling right of a color
+	 * @param color The color of the king
+	 * @param little true for the little castling, false for the big
+	 * @return The right (see WHITE_LITTLE_CASTLE, ...)
+	 */
+	private static int castlingRight(final ColorG color, final boolean little)
+	{
+		int right = (little ? WHITE_LITTLE_CASTLE : WHITE_BIG_CASTLE);
+		return (color == ColorG.WHITE ? right : right << 2);
+	}
+	
+	/**
+	 * Get the color of the player who plays the next move
+	 * @return The color
+	 */
+	public ColorG getSideToMove()
+	{
+		return this.sideToMove;
+	}
+	
+	/**
+	 * Change the color of the player who plays the next move
+	 * @param color The new color
+	 */
+	public void setSideToMove(final ColorG color)
+	{
+		this.key ^= Zobrist.side(this.sideToMove) ^ Zobrist.side(color);
+		this.sideToMove = color;
+		this.version++;
+	}
+	
+	/**
+	 * Get the Zobrist key of the position
+	 * <br>It's updated at each change on the board, two equal positions have the same key.
+	 * @return The 64 bits key
+	 */
+	public long getKey()
+	{
+		return this.key;
+	}
+	
+	/**
+	 * Compute the Zobrist key of the position from scratch
+	 * @return The 64 bits key
+	 */
+	private long computeKey()
+	{
+		long res = Zobrist.castling(this.castlingRights) ^ Zobrist.side(this.sideToMove) ^ this.enPassantKey();
+		for (int square = 0; square < 64; square++) {
+			res ^= Zobrist.piece(this.pieces[square], square);
+		}
+		return res;
+	}
+	
+	/**
+	 * Get the 'enPassant' part of the key
+	 * <br>The column is only used if an enemy pawn can take the last pawn, so a hop
+	 * without consequence gives the same key as any other move.
+	 * @return The number to xor (0 if there's no 'enPassant' possible)
+	 */
+	private long enPassantKey()
+	{
+		if (this.lastPawnHop == null) {
+			return 0L;
+		}
+		ColorG color = this.lastPawnHop.getColor();
+		ColorG enemy = (color == ColorG.WHITE ? ColorG.BLACK : ColorG.WHITE);
+		int square = this.lastPawnHop.getPosition().getSquare();
+		int passed = square + (color == ColorG.WHITE ? -8 : 8);
+		
+		if ((Attacks.pawn(color, passed) & this.getPieceMask(enemy, Bitboard.PAWN)) == 0) {
+			return 0L;
+		}
+		return Zobrist.enPassant(Bitboard.squareX(square));
+	}
+	
+	/**
+	 * Get the Zobrist key of the pawns of the position, kept up to date at each change
+	 * @return The xor of the numbers of the pawns on their squares (see Zobrist.java)
+	 */
+	public long getPawnKey()
+	{
+		return this.pawnKey;
+	}
+	
+	/**
+	 * Get the sum of the middlegame scores of the pieces, kept up to date at each change
+	 * @return The score in centipawns, positive when white is better (see Evaluation.java)
+	 */
+	public int getMiddlegameScore()
+	{
+		return this.middlegameScore;
+	}
+	
+	/**
+	 * Get the sum of the endgame scores of the pieces, kept up to date at each change
+	 * @return The score in centipawns, positive when white is better
+	 */
+	public int getEndgameScore()
+	{
+		return this.endgameScore;
+	}
+	
+	/**
+	 * Get the phase of the game
+	 * @return The weight of the pieces left, Evaluation.MAX_PHASE at the start (more after promotions)
+	 */
+	public int getPhase()
+	{
+		return this.phase;
 	}
 	
 	/**
@@ -149,20 +764,16 @@ public class Chessboard
 		this.blackPlayer = black;
 		
 		Piece piece;
-		for (int x = 0; x < 8; x++) {
-			for (int y = 0; y < 8; y++) {
-				piece = this.pieces[x][y];
-				if (piece == null) {
-					continue;
-				}
-				
-				if (piece.getColor() == ColorG.WHITE) {
-					piece.setPlayer(this.whitePlayer);
-					this.whitePlayer.addPiece(piece);
-				} else {
-					piece.setPlayer(this.blackPlayer);
-					this.blackPlayer.addPiece(piece);
-				}
+		long mask = this.occupied;
+		while (mask != 0) {
+			piece = this.pieces[Bitboard.first(mask)];
+			mask &= mask - 1;
+			
+			Player player = (piece.getColor() == ColorG.WHITE ? this.whitePlayer : this.blackPlayer);
+			piece.setPlayer(player);
+			player.addPiece(piece);
+			if (piece.getType() == Bitboard.KING) {
+				player.setKingPos(piece.getPosition());
 			}
 		}
 	}
@@ -179,16 +790,7 @@ public class Chessboard
 			throw new IllegalArgumentException("Not on the same line");
 		}
 		
-		int min = Math.min(start.getX(), end.getX());
-		int max = Math.max(start.getX(), end.getX());
-		int y = start.getY();
-		
-		for (int i = min+1; i < max; i++) {
-			if (this.getPiece(i, y) != null) {
-				return true;
-			}
-		}
-		return false;
+		return (Attacks.between(start.getSquare(), end.getSquare()) & this.occupied) != 0;
 	}
 	
 	/**
@@ -203,16 +805,7 @@ public class Chessboard
 			throw new IllegalArgumentException("Not on the same column");
 		}
 		
-		int min = Math.min(start.getY(), end.getY());
-		int max = Math.max(start.getY(), end.getY());
-		int x = start.getX();
-		
-		for (int i = min+1; i < max; i++) {
-			if (this.getPiece(x, i) != null) {
-				return true;
-			}
-		}
-		return false;
+		return (Attacks.between(start.getSquare(), end.getSquare()) & this.occupied) != 0;
 	}
 	
 	/**
@@ -227,76 +820,336 @@ public class Chessboard
 			throw new IllegalArgumentException("Not on the same diagonal or it's the same position");
 		}
 		
-		int addX = (start.getX() < end.getX() ? 1 : -1);
-		int addY = (start.getY() < end.getY() ? 1 : -1);
-		
-		int x, y;
-		x = start.getX() + addX;
-		y = start.getY() + addY;;
+		return (Attacks.between(start.getSquare(), end.getSquare()) & this.occupied) != 0;
+	}
+	
+	/**
+	 * Get the legal moves of a color, generated once for each state of the board
+	 * @param color The color of the moving pieces
+	 * @param moves The array to fill with the packed moves (see Move.java)
+	 * @return The number of legal moves
+	 */
+	public int getLegalMoves(final ColorG color, final int[] moves)
+	{
+		int nb = this.updateLegalMoves(color);
+		System.arraycopy(this.legalMoves[color.ordinal()], 0, moves, 0, nb);
+		return nb;
+	}
+	
+	/**
+	 * Check if a color has at least one legal move, the generation stops at the first move found if the legal
+	 * moves were not generated for this state of the board
+	 * @param color The color of the moving pieces
+	 * @return true if there's a legal move
+	 */
+	public boolean hasLegalMove(final ColorG color)
+	{
+		int index = color.ordinal();
+		if (this.legalVersion[index] == this.version) {
+			return this.legalCount[index] > 0;
+		}
+		// The array is overwritten but stays out of date, the moves are generated again when they are needed
+		return MoveGenerator.hasLegalMove(this, color, this.legalMoves[index]);
+	}
+	
+	/**
+	 * Check if a move is legal (the king of the moving piece is safe after it)
+	 * @param start The starting square
+	 * @param end The ending square
+	 * @return true if the piece on the starting square can go to the ending square
+	 */
+	public boolean isLegalMove(final int start, final int end)
+	{
+		Piece piece = this.pieces[start];
+		if (piece == null) {
+			return false;
+		}
 		
-		while (x != end.getX() && y != end.getY()) {
-			if (this.getPiece(x, y) != null) {
+		int nb = this.updateLegalMoves(piece.getColor());
+		int[] moves = this.legalMoves[piece.getColor().ordinal()];
+		for (int i = 0; i < nb; i++) {
+			if (Move.getStart(moves[i]) == start && Move.getEnd(moves[i]) == end) {
 				return true;
 			}
-			x += addX;
-			y += addY;
 		}
 		return false;
 	}
 	
 	/**
-	 * Simulate the movement of the piece before checking the square
-	 * @param pos The ending position of the piece
-	 * @param piece The moving piece
-	 * @param player The opponent
-	 * @return true if the square is safe, else false
+	 * Generate the legal moves of a color if the board changed since the last generation
+	 * @param color The color of the moving pieces
+	 * @return The number of legal moves
+	 */
+	private int updateLegalMoves(final ColorG color)
+	{
+		int index = color.ordinal();
+		if (this.legalVersion[index] != this.version) {
+			this.legalCount[index] = MoveGenerator.generate(this, color, this.legalMoves[index]);
+			this.legalVersion[index] = this.version;
+		}
+		return this.legalCount[index];
+	}
+	
+	/**
+	 * Create the packed move of a piece from its starting and ending squares (the legality is not checked)
+	 * @param start The starting square
+	 * @param end The ending square
+	 * @param promotion The type of the new piece if a pawn reaches the last line (see Bitboard.java)
+	 * @return The packed move (see Move.java)
+	 */
+	public int createMove(final int start, final int end, final int promotion)
+	{
+		Piece piece = this.pieces[start];
+		boolean capture = this.pieces[end] != null;
+		int distance = Math.abs(end - start);
+		
+		if (piece.getType() == Bitboard.PAWN) {
+			if (Bitboard.squareY(end) == 0 || Bitboard.squareY(end) == 7) {
+				return Move.promotion(start, end, promotion, capture);
+			}
+			if (distance == 16) {
+				return Move.create(start, end, Move.DOUBLE_PAWN);
+			}
+			// Going in diagonal on an empty square is a 'enPassant'
+			if (!capture && Bitboard.squareX(start) != Bitboard.squareX(end)) {
+				return Move.create(start, end, Move.EN_PASSANT);
+			}
+		}
+		else if (piece.getType() == Bitboard.KING && distance == 2) {
+			return Move.create(start, end, end > start ? Move.LITTLE_CASTLE : Move.BIG_CASTLE);
+		}
+		return Move.create(start, end, capture ? Move.CAPTURE : Move.QUIET);
+	}
+	
+	/**
+	 * Play a move on the board, it can be cancelled with unmakeMove
+	 * <br>The captured piece is removed from its player and a promoted pawn is replaced
+	 * by a new piece (worth 1 point like in GameEngine)
+	 * @param move The packed move (see Move.java)
+	 * @return The captured piece (null if there's none)
 	 */
-	public boolean checkSquare(final Position pos, final Piece piece, final Player player)
+	public Piece makeMove(final int move)
 	{
-		Piece opponentPiece = this.getPiece(pos);
-		this.setPiece(null, piece.getPosition());
-		this.setPiece(piece, pos);
+		int start = Move.getStart(move);
+		int end = Move.getEnd(move);
+		int flags = Move.getFlags(move);
+		Piece piece = this.pieces[start];
+		Player player = piece.getPlayer();
+		int capturedSquare = (flags == Move.EN_PASSANT ? Bitboard.square(Bitboard.squareX(end), Bitboard.squareY(start)) : end);
+		Piece captured = this.pieces[capturedSquare];
+		Piece promoted = null;
 		
-		if (opponentPiece != null) {
-			player.rmvPiece(opponentPiece);
+		// Save everything the move can't give back
+		this.growUndo();
+		int kingSquare = (player == null ? 0 : player.getKingPos().getSquare());
+		this.undoStates[this.undoSize] = move | ((long) this.castlingRights << 16) | ((long) kingSquare << 20);
+		this.undoCaptured[this.undoSize] = captured;
+		this.undoLastPawn[this.undoSize] = this.lastPawnHop;
+		this.undoKeys[this.undoSize] = this.key;
+		this.key ^= this.enPassantKey();
+		this.lastPawnHop = null;
+		
+		if (captured != null) {
+			this.placePiece(null, capturedSquare);
+			if (captured.getPlayer() != null) {
+				captured.getPlayer().rmvPiece(captured);
+			}
+		}
+		
+		this.placePiece(null, start);
+		if (Move.isPromotion(move)) {
+			promoted = piece;
+			piece = createPiece(Move.getPromotionType(move), end, piece.getColor(), player, 1);
+			if (player != null) {
+				player.rmvPiece(promoted);
+				player.addPiece(piece);
+			}
 		}
+		this.putPiece(piece, end);
+		this.undoPromoted[this.undoSize] = promoted;
+		this.undoSize++;
 		
-		boolean res = this.safeSquare(pos, player);
-		if (opponentPiece != null) {
-			player.addPiece(opponentPiece);
+		// The rook of a castling goes on the other side of the king
+		if (flags == Move.LITTLE_CASTLE) {
+			this.movePiece(end + 1, end - 1);
+		} else if (flags == Move.BIG_CASTLE) {
+			this.movePiece(end - 2, end + 1);
 		}
 		
-		this.setPiece(opponentPiece, pos);
-		this.setPiece(piece, piece.getPosition());
-		return res;
+		if (piece.getType() == Bitboard.KING && player != null) {
+			player.setKingPos(Position.of(end));
+		}
+		
+		this.lastPawnHop = (flags == Move.DOUBLE_PAWN ? piece : null);
+		this.key ^= this.enPassantKey();
+		int rights = this.castlingRights & CASTLING_MASKS[start] & CASTLING_MASKS[end];
+		this.key ^= Zobrist.castling(this.castlingRights) ^ Zobrist.castling(rights) ^ Zobrist.side(ColorG.BLACK);
+		this.castlingRights = rights;
+		this.sideToMove = (this.sideToMove == ColorG.WHITE ? ColorG.BLACK : ColorG.WHITE);
+		this.version++;
+		return captured;
 	}
 	
 	/**
-	 * Simulate the movement of the piece before checking the square
-	 * @param kingPos The position of the king
-	 * @param piece The moving piece
-	 * @param end The ending position of the piece
-	 * @param player The opponent
-	 * @return true if the square is safe, else false
+	 * Give the turn to the opponent without moving a piece (null move), it can be cancelled with unmakeMove
+	 * <br>It's not a legal move : the search uses it to check if the position is still good when the
+	 * side to move passes. The side to move must not be in check.
 	 */
-	public boolean checkSquare(final Position kingPos, final Piece piece, final Position end, final Player player)
+	public void makeNullMove()
 	{
-		Piece opponentPiece = this.getPiece(end);
-		this.setPiece(null, piece.getPosition());
-		this.setPiece(piece, end);
+		this.growUndo();
+		this.undoStates[this.undoSize] = Move.NONE | ((long) this.castlingRights << 16);
+		this.undoLastPawn[this.undoSize] = this.lastPawnHop;
+		this.undoKeys[this.undoSize] = this.key;
+		this.undoSize++;
 		
-		if (opponentPiece != null) {
-			player.rmvPiece(opponentPiece);
+		this.key ^= this.enPassantKey() ^ Zobrist.side(ColorG.BLACK);
+		this.lastPawnHop = null;
+		this.sideToMove = (this.sideToMove == ColorG.WHITE ? ColorG.BLACK : ColorG.WHITE);
+		this.version++;
+	}
+	
+	/**
+	 * Cancel the last move played with makeMove (or makeNullMove)
+	 */
+	public void unmakeMove()
+	{
+		if (this.undoSize == 0) {
+			throw new IllegalStateException("No move to cancel");
 		}
 		
-		boolean res = this.safeSquare(kingPos, player);
-		if (opponentPiece != null) {
-			player.addPiece(opponentPiece);
+		this.undoSize--;
+		long state = this.undoStates[this.undoSize];
+		int move = (int) (state & 0xFFFF);
+		int start = Move.getStart(move);
+		int end = Move.getEnd(move);
+		int flags = Move.getFlags(move);
+		if (move == Move.NONE) {
+			this.lastPawnHop = this.undoLastPawn[this.undoSize];
+			this.key = this.undoKeys[this.undoSize];
+			this.sideToMove = (this.sideToMove == ColorG.WHITE ? ColorG.BLACK : ColorG.WHITE);
+			this.undoLastPawn[this.undoSize] = null;
+			this.version++;
+			return;
 		}
+		Piece captured = this.undoCaptured[this.undoSize];
+		Piece promoted = this.undoPromoted[this.undoSize];
+		Piece piece = this.pieces[end];
+		Player player = piece.getPlayer();
+		this.lastPawnHop = null;
 		
-		this.setPiece(opponentPiece, end);
-		this.setPiece(piece, piece.getPosition());
-		return res;
+		if (flags == Move.LITTLE_CASTLE) {
+			this.movePiece(end - 1, end + 1);
+		} else if (flags == Move.BIG_CASTLE) {
+			this.movePiece(end + 1, end - 2);
+		}
+		
+		this.placePiece(null, end);
+		if (promoted != null) {
+			if (player != null) {
+				player.rmvPiece(piece);
+				player.addPiece(promoted);
+			}
+			piece = promoted;
+		}
+		this.putPiece(piece, start);
+		
+		if (captured != null) {
+			int capturedSquare = (flags == Move.EN_PASSANT ? Bitboard.square(Bitboard.squareX(end), Bitboard.squareY(start)) : end);
+			this.placePiece(captured, capturedSquare);
+			if (captured.getPlayer() != null) {
+				captured.getPlayer().addPiece(captured);
+			}
+		}
+		
+		if (piece.getType() == Bitboard.KING && player != null) {
+			int kingSquare = (int) ((state >>> 20) & 0x3F);
+			player.setKingPos(Position.of(kingSquare));
+		}
+		
+		this.lastPawnHop = this.undoLastPawn[this.undoSize];
+		this.key = this.undoKeys[this.undoSize];
+		this.castlingRights = (int) ((state >>> 16) & 0xF);
+		this.sideToMove = (this.sideToMove == ColorG.WHITE ? ColorG.BLACK : ColorG.WHITE);
+		this.undoCaptured[this.undoSize] = null;
+		this.undoLastPawn[this.undoSize] = null;
+		this.undoPromoted[this.undoSize] = null;
+		this.version++;
+	}
+	
+	/**
+	 * Get the number of moves that can be cancelled with unmakeMove
+	 * @return The size of the undo stack
+	 */
+	public int getUndoSize()
+	{
+		return this.undoSize;
+	}
+	
+	/**
+	 * Make the undo stack bigger if it's full
+	 */
+	private void growUndo()
+	{
+		if (this.undoSize == this.undoStates.length) {
+			int size = this.undoSize * 2;
+			this.undoStates = Arrays.copyOf(this.undoStates, size);
+			this.undoKeys = Arrays.copyOf(this.undoKeys, size);
+			this.undoCaptured = Arrays.copyOf(this.undoCaptured, size);
+			this.undoLastPawn = Arrays.copyOf(this.undoLastPawn, size);
+			this.undoPromoted = Arrays.copyOf(this.undoPromoted, size);
+		}
+	}
+	
+	/**
+	 * Move a piece from a square to an empty one
+	 * @param start The starting square
+	 * @param end The ending square
+	 */
+	private void movePiece(final int start, final int end)
+	{
+		Piece piece = this.pieces[start];
+		this.placePiece(null, start);
+		this.putPiece(piece, end);
+	}
+	
+	/**
+	 * Put a piece on a square and update its position
+	 * @param piece The piece to put
+	 * @param square The index of the square
+	 */
+	private void putPiece(final Piece piece, final int square)
+	{
+		piece.setPosition(Position.of(square));
+		this.placePiece(piece, square);
+	}
+	
+	/**
+	 * Create a new piece for the board
+	 * @param type The type of the piece (see Bitboard.java)
+	 * @param square The square of the piece
+	 * @param color The color of the piece
+	 * @param player The player who the piece belongs to
+	 * @param value The value given if the piece is eaten
+	 * @return The new piece
+	 */
+	private Piece createPiece(final int type, final int square, final ColorG color, final Player player, final int value)
+	{
+		Position pos = Position.of(square);
+		switch (type) {
+		case Bitboard.PAWN:
+			return new Pawn(this, pos, color, player, value);
+		case Bitboard.KNIGHT:
+			return new Knight(this, pos, color, player, value);
+		case Bitboard.BISHOP:
+			return new Bishop(this, pos, color, player, value);
+		case Bitboard.ROOK:
+			return new Rook(this, pos, color, player, value);
+		case Bitboard.QUEEN:
+			return new Queen(this, pos, color, player, value);
+		default:
+			return new King(this, pos, color, player, value);
+		}
 	}
 	
 	/**
@@ -307,12 +1160,236 @@ public class Chessboard
 	 */
 	public boolean safeSquare(final Position pos, final Player player)
 	{
-		for (Piece piece : player.getPieces()) {
-			if (piece.canMoveTo(pos)) {
+		return (this.attackedMasks[player.getColor().ordinal()] & Bitboard.bit(pos.getSquare())) == 0;
+	}
+	
+	/**
+	 * Check if the king of a color is in check
+	 * @param color The color of the king
+	 * @return true if an enemy piece attacks the king
+	 */
+	public boolean isInCheck(final ColorG color)
+	{
+		long king = this.pieceMasks[Bitboard.index(color, Bitboard.KING)];
+		return (this.attackedMasks[color == ColorG.WHITE ? 1 : 0] & king) != 0;
+	}
+	
+	/**
+	 * Check if the position already happened since the last move that can't be undone
+	 * (capture, pawn hop, castling, promotion or null move)
+	 * @return true if the position is a repetition
+	 */
+	public boolean isRepetition()
+	{
+		for (int i = this.undoSize - 1; i >= 0; i--) {
+			if ((this.undoSize - i) % 2 == 0 && this.undoKeys[i] == this.key) {
+				return true;
+			}
+			if (this.isIrreversible(i)) {
 				return false;
 			}
 		}
-		return true;
+		// The positions played before the board was copied
+		for (int i = this.history.length - 1; i >= 0; i--) {
+			if ((this.undoSize + this.history.length - i) % 2 == 0 && this.history[i] == this.key) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Check if a move of the undo stack can't be undone by the next moves (capture, pawn hop, castling, promotion or
+	 * null move)
+	 * @param index The index of the move in the undo stack
+	 * @return true if the positions before the move can't happen again
+	 */
+	private boolean isIrreversible(final int index)
+	{
+		return Move.getFlags((int) this.undoStates[index]) != Move.QUIET || (this.undoStates[index] & 0xFFFF) == Move.NONE;
+	}
+	
+	/**
+	 * Check if a square is attacked by the pieces of a color
+	 * @param square The index of the square to check
+	 * @param color The color of the attacking pieces
+	 * @return true if at least one piece attacks the square
+	 */
+	public boolean isSquareAttacked(final int square, final ColorG color)
+	{
+		return (this.attackedMasks[color.ordinal()] & Bitboard.bit(square)) != 0;
+	}
+	
+	/**
+	 * Get all the pieces (of both colors) attacking a square
+	 * @param square The index of the square
+	 * @param occupancy The occupancy of the board to use for the sliding pieces
+	 * @return The mask of the squares of the attacking pieces
+	 */
+	public long attackersTo(final int square, final long occupancy)
+	{
+		long queens = this.pieceMasks[Bitboard.QUEEN] | this.pieceMasks[Bitboard.NB_TYPES + Bitboard.QUEEN];
+		long rooks = this.pieceMasks[Bitboard.ROOK] | this.pieceMasks[Bitboard.NB_TYPES + Bitboard.ROOK] | queens;
+		long bishops = this.pieceMasks[Bitboard.BISHOP] | this.pieceMasks[Bitboard.NB_TYPES + Bitboard.BISHOP] | queens;
+		
+		return (Attacks.pawn(ColorG.BLACK, square) & this.getPieceMask(ColorG.WHITE, Bitboard.PAWN))
+			 | (Attacks.pawn(ColorG.WHITE, square) & this.getPieceMask(ColorG.BLACK, Bitboard.PAWN))
+			 | (Attacks.knight(square) & (this.pieceMasks[Bitboard.KNIGHT] | this.pieceMasks[Bitboard.NB_TYPES + Bitboard.KNIGHT]))
+			 | (Attacks.king(square) & (this.pieceMasks[Bitboard.KING] | this.pieceMasks[Bitboard.NB_TYPES + Bitboard.KING]))
+			 | (Attacks.rook(square, occupancy) & rooks)
+			 | (Attacks.bishop(square, occupancy) & bishops);
+	}
+	
+	/**
+	 * Compute the material won by a move at the end of the exchange of captures on its ending square
+	 * (static exchange evaluation)
+	 * <br>Each side captures with its least valuable piece and can stop when it loses material,
+	 * the pieces behind an attacker (x-rays) join the exchange once it left. The pins are ignored.
+	 * @param move The packed move (see Move.java), a capture or not
+	 * @return The material won by the side playing the move in centipawns (negative if it loses material)
+	 */
+	public int see(final int move)
+	{
+		if (Move.isCastle(move)) {
+			return 0;
+		}
+		int start = Move.getStart(move);
+		int end = Move.getEnd(move);
+		ColorG side = this.pieces[start].getColor();
+		long occupancy = this.occupied ^ Bitboard.bit(start);
+		int[] gains = this.seeGains;
+		int onSquare = this.seeMoving(move);
+		gains[0] = this.seeCaptured(move);
+		if (Move.getFlags(move) == Move.EN_PASSANT) {
+			occupancy ^= Bitboard.bit(Bitboard.square(Bitboard.squareX(end), Bitboard.squareY(start)));
+		}
+
+		long queens = this.pieceMasks[Bitboard.QUEEN] | this.pieceMasks[Bitboard.NB_TYPES + Bitboard.QUEEN];
+		long rooks = this.pieceMasks[Bitboard.ROOK] | this.pieceMasks[Bitboard.NB_TYPES + Bitboard.ROOK] | queens;
+		long bishops = this.pieceMasks[Bitboard.BISHOP] | this.pieceMasks[Bitboard.NB_TYPES + Bitboard.BISHOP] | queens;
+		long attackers = this.attackersTo(end, occupancy) & occupancy;
+		long own, next;
+		int depth = 0, type;
+
+		while (true) {
+			side = (side == ColorG.WHITE ? ColorG.BLACK : ColorG.WHITE);
+			own = attackers & this.colorMasks[side.ordinal()];
+			if (own == 0) {
+				break;
+			}
+			next = 0L;
+			for (type = Bitboard.PAWN; next == 0; type++) {
+				next = own & this.pieceMasks[Bitboard.index(side, type)];
+			}
+			type--;
+			// The king can't capture a defended piece
+			if (type == Bitboard.KING && (attackers & ~own) != 0) {
+				break;
+			}
+
+			depth++;
+			gains[depth] = onSquare - gains[depth - 1];
+			onSquare = SEE_VALUES[type];
+			occupancy ^= next & -next;
+			if (type != Bitboard.KNIGHT && type != Bitboard.ROOK) {
+				attackers |= Attacks.bishop(end, occupancy) & bishops;
+			}
+			if (type == Bitboard.ROOK || type == Bitboard.QUEEN || type == Bitboard.KING) {
+				attackers |= Attacks.rook(end, occupancy) & rooks;
+			}
+			attackers &= occupancy;
+		}
+
+		// Each side only captures if it doesn't lose material
+		while (depth > 0) {
+			gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+			depth--;
+		}
+		return gains[0];
+	}
+	
+	/**
+	 * Check if a move wins at least a given material at the end of the exchange on its ending square (see see)
+	 * <br>The exchange is only computed when the first capture alone doesn't answer.
+	 * @param move The packed move
+	 * @param threshold The material in centipawns
+	 * @return true if the move wins at least the threshold
+	 */
+	public boolean seeGreaterOrEqual(final int move, final int threshold)
+	{
+		if (Move.isCastle(move)) {
+			return threshold <= 0;
+		}
+		int captured = this.seeCaptured(move);
+		// The opponent can always stop the exchange, and the side to move can stop after losing its piece
+		if (captured < threshold) {
+			return false;
+		}
+		if (captured - this.seeMoving(move) >= threshold) {
+			return true;
+		}
+		return this.see(move) >= threshold;
+	}
+	
+	/**
+	 * Get the pieces of a color that the opponent can win by capturing them (hanging pieces)
+	 * @param color The color of the pieces
+	 * @return The mask of the squares of the pieces losing material when captured by their least valuable attacker
+	 */
+	public long getHangingPieces(final ColorG color)
+	{
+		ColorG enemy = (color == ColorG.WHITE ? ColorG.BLACK : ColorG.WHITE);
+		long targets = this.colorMasks[color.ordinal()] & this.attackedMasks[enemy.ordinal()]
+					 & ~this.pieceMasks[Bitboard.index(color, Bitboard.KING)];
+		long res = 0L;
+		long attackers, next;
+		int square;
+
+		while (targets != 0) {
+			square = Bitboard.first(targets);
+			targets &= targets - 1;
+			attackers = this.attackersTo(square, this.occupied) & this.colorMasks[enemy.ordinal()];
+			next = 0L;
+			for (int type = Bitboard.PAWN; next == 0; type++) {
+				next = attackers & this.pieceMasks[Bitboard.index(enemy, type)];
+			}
+			if (this.see(Move.create(Bitboard.first(next), square, Move.CAPTURE)) > 0) {
+				res |= Bitboard.bit(square);
+			}
+		}
+		return res;
+	}
+	
+	/**
+	 * Get the material won by the first capture of a move (see see)
+	 * @param move The packed move
+	 * @return The value of the captured piece plus the gain of a promotion
+	 */
+	private int seeCaptured(final int move)
+	{
+		int res = 0;
+		if (Move.getFlags(move) == Move.EN_PASSANT) {
+			res = SEE_VALUES[Bitboard.PAWN];
+		} else if (this.pieces[Move.getEnd(move)] != null) {
+			res = SEE_VALUES[this.pieces[Move.getEnd(move)].getType()];
+		}
+		if (Move.isPromotion(move)) {
+			res += SEE_VALUES[Move.getPromotionType(move)] - SEE_VALUES[Bitboard.PAWN];
+		}
+		return res;
+	}
+	
+	/**
+	 * Get the value of the piece standing on the ending square after a move (see see)
+	 * @param move The packed move
+	 * @return The value of the moving piece, or of the new piece for a promotion
+	 */
+	private int seeMoving(final int move)
+	{
+		if (Move.isPromotion(move)) {
+			return SEE_VALUES[Move.getPromotionType(move)];
+		}
+		return SEE_VALUES[this.pieces[Move.getStart(move)].getType()];
 	}
 	
 	@Override
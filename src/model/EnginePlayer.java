@@ -0,0 +1,109 @@
+package model;
+
+import utils.ColorG;
+
+/**
+ * Class of a player whose moves are chosen by a search (see Search.java)
+ * @author Hitsuji
+ */
+public class EnginePlayer extends Player
+{
+	/** Default size of the transposition table in MB */
+	public static final int TABLE_SIZE = 64;
+
+	/** The search choosing the moves */
+	private Search search;
+	/** Thread searching during the opponent's turn (null if the player is not pondering) */
+	private Thread ponderThread;
+	/** Move of the opponent expected by the pondering (Move.NONE if the player is not pondering) */
+	private int ponderMove;
+
+	/**
+	 * Constructor of the class
+	 * @param name Name of the player
+	 * @param color Color of the player
+	 * @param kingPos Position of the player's King
+	 */
+	public EnginePlayer(final String name, final ColorG color, final Position kingPos)
+	{
+		super(name, color, kingPos);
+		this.search = new Search(new TranspositionTable(TABLE_SIZE));
+		this.ponderThread = null;
+		this.ponderMove = Move.NONE;
+	}
+
+	/**
+	 * Get the search of the player, to change its limits
+	 * @return The search
+	 */
+	public Search getSearch()
+	{
+		return this.search;
+	}
+
+	/**
+	 * Choose the move to play, the pondering is stopped first
+	 * @param board The board of the game (it's not modified, the search uses a copy which keeps the repetitions)
+	 * @return The packed move (see Move.java), Move.NONE if there's no legal move
+	 */
+	public int chooseMove(final Chessboard board)
+	{
+		this.stopPondering();
+		return this.search.search(board.copy());
+	}
+
+	/**
+	 * Start to search during the opponent's turn (pondering) : the position after the reply expected by the last
+	 * search is searched in the background, so the table is already filled if the opponent plays it
+	 * @param board The board of the game after the move of the player (it's not modified, the search uses a copy)
+	 * @return The move expected from the opponent, Move.NONE if there's none (the player doesn't ponder)
+	 */
+	public int startPondering(final Chessboard board)
+	{
+		this.stopPondering();
+		int[] pv = this.search.getPrincipalVariation();
+		if (pv.length < 2) {
+			return Move.NONE;
+		}
+
+		Chessboard copy = board.copy();
+		int[] moves = new int[Move.MAX_MOVES];
+		int nb = MoveGenerator.generate(copy, copy.getSideToMove(), moves);
+		for (int i = 0; i < nb; i++) {
+			if (moves[i] == pv[1]) {
+				copy.makeMove(pv[1]);
+				this.ponderMove = pv[1];
+				this.ponderThread = this.search.ponder(copy);
+				return this.ponderMove;
+			}
+		}
+		return Move.NONE;
+	}
+
+	/**
+	 * Stop the search of the opponent's turn and wait for its end (nothing is done if the player is not pondering)
+	 */
+	public void stopPondering()
+	{
+		if (this.ponderThread == null) {
+			return;
+		}
+		this.search.stop();
+		try {
+			this.ponderThread.join();
+		} catch (final InterruptedException error) {
+			Thread.currentThread().interrupt();
+		}
+		this.ponderThread = null;
+		this.ponderMove = Move.NONE;
+	}
+
+	/**
+	 * Get the move of the opponent expected by the pondering
+	 * @return The packed move, Move.NONE if the player is not pondering
+	 */
+	public int getPonderMove()
+	{
+		return this.ponderMove;
+	}
+}
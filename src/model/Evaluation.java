@@ -0,0 +1,212 @@
+package model;
+
+import utils.ColorG;
+
+/**
+ * Static evaluation of a position : material and piece-square tables
+ * <br>Each piece has a score for the middlegame and one for the endgame, depending on its type and its square.
+ * The board keeps the sum of these scores up to date at each change (see Chessboard.placePiece),
+ * so evaluating a position only mixes the two sums according to the material left (tapered evaluation).
+ * The pawn structure is evaluated apart and kept in a table (see PawnTable.java).
+ * <br>The scores are in centipawns, positive when white is better.
+ * @author Hitsuji
+ */
+public final class Evaluation
+{
+	/**
+	 * Disabled default constructor
+	 */
+	private Evaluation() {}
+
+	/** Phase of the starting position (all the pieces on the board), 0 is a pawn endgame */
+	public static final int MAX_PHASE = 24;
+
+	/** Value of each type of piece in the middlegame (see Bitboard.java) */
+	private static final int[] MIDDLEGAME_VALUES = {100, 320, 330, 500, 900, 0};
+	/** Value of each type of piece in the endgame */
+	private static final int[] ENDGAME_VALUES = {120, 300, 320, 530, 950, 0};
+	/** Weight of each type of piece in the phase of the game */
+	private static final int[] PHASES = {0, 1, 1, 2, 4, 0};
+
+	/** Bonus of each type of piece on each square in the middlegame, for white with the line 8 first */
+	private static final int[][] MIDDLEGAME_TABLES = {
+		{ // Pawn
+			  0,   0,   0,   0,   0,   0,   0,   0,
+			 50,  50,  50,  50,  50,  50,  50,  50,
+			 10,  10,  20,  30,  30,  20,  10,  10,
+			  5,   5,  10,  25,  25,  10,   5,   5,
+			  0,   0,   0,  20,  20,   0,   0,   0,
+			  5,  -5, -10,   0,   0, -10,  -5,   5,
+			  5,  10,  10, -20, -20,  10,  10,   5,
+			  0,   0,   0,   0,   0,   0,   0,   0
+		},
+		{ // Knight
+			-50, -40, -30, -30, -30, -30, -40, -50,
+			-40, -20,   0,   0,   0,   0, -20, -40,
+			-30,   0,  10,  15,  15,  10,   0, -30,
+			-30,   5,  15,  20,  20,  15,   5, -30,
+			-30,   0,  15,  20,  20,  15,   0, -30,
+			-30,   5,  10,  15,  15,  10,   5, -30,
+			-40, -20,   0,   5,   5,   0, -20, -40,
+			-50, -40, -30, -30, -30, -30, -40, -50
+		},
+		{ // Bishop
+			-20, -10, -10, -10, -10, -10, -10, -20,
+			-10,   0,   0,   0,   0,   0,   0, -10,
+			-10,   0,   5,  10,  10,   5,   0, -10,
+			-10,   5,   5,  10,  10,   5,   5, -10,
+			-10,   0,  10,  10,  10,  10,   0, -10,
+			-10,  10,  10,  10,  10,  10,  10, -10,
+			-10,   5,   0,   0,   0,   0,   5, -10,
+			-20, -10, -10, -10, -10, -10, -10, -20
+		},
+		{ // Rook
+			  0,   0,   0,   0,   0,   0,   0,   0,
+			  5,  10,  10,  10,  10,  10,  10,   5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			  0,   0,   0,   5,   5,   0,   0,   0
+		},
+		{ // Queen
+			-20, -10, -10,  -5,  -5, -10, -10, -20,
+			-10,   0,   0,   0,   0,   0,   0, -10,
+			-10,   0,   5,   5,   5,   5,   0, -10,
+			 -5,   0,   5,   5,   5,   5,   0,  -5,
+			  0,   0,   5,   5,   5,   5,   0,  -5,
+			-10,   5,   5,   5,   5,   5,   0, -10,
+			-10,   0,   5,   0,   0,   0,   0, -10,
+			-20, -10, -10,  -5,  -5, -10, -10, -20
+		},
+		{ // King : safe behind its pawns
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-20, -30, -30, -40, -40, -30, -30, -20,
+			-10, -20, -20, -20, -20, -20, -20, -10,
+			 20,  20,   0,   0,   0,   0,  20,  20,
+			 20,  30,  10,   0,   0,  10,  30,  20
+		}
+	};
+
+	/** Bonus of each type of piece on each square in the endgame, for white with the line 8 first */
+	private static final int[][] ENDGAME_TABLES = {
+		{ // Pawn : the closer to the promotion, the better
+			  0,   0,   0,   0,   0,   0,   0,   0,
+			 80,  80,  80,  80,  80,  80,  80,  80,
+			 50,  50,  50,  50,  50,  50,  50,  50,
+			 30,  30,  30,  30,  30,  30,  30,  30,
+			 15,  15,  15,  15,  15,  15,  15,  15,
+			  5,   5,   5,   5,   5,   5,   5,   5,
+			  0,   0,   0,   0,   0,   0,   0,   0,
+			  0,   0,   0,   0,   0,   0,   0,   0
+		},
+		MIDDLEGAME_TABLES[Bitboard.KNIGHT],
+		MIDDLEGAME_TABLES[Bitboard.BISHOP],
+		new int[64],
+		MIDDLEGAME_TABLES[Bitboard.QUEEN],
+		{ // King : active in the center
+			-50, -40, -30, -20, -20, -30, -40, -50,
+			-30, -20, -10,   0,   0, -10, -20, -30,
+			-30, -10,  20,  30,  30,  20, -10, -30,
+			-30, -10,  30,  40,  40,  30, -10, -30,
+			-30, -10,  30,  40,  40,  30, -10, -30,
+			-30, -10,  20,  30,  30,  20, -10, -30,
+			-30, -30,   0,   0,   0,   0, -30, -30,
+			-50, -30, -30, -30, -30, -30, -30, -50
+		}
+	};
+
+	/** Middlegame score of each type of piece of each color on each square (see Bitboard.index), negative for black */
+	private static final int[][] MIDDLEGAME = new int[12][64];
+	/** Endgame score of each type of piece of each color on each square, negative for black */
+	private static final int[][] ENDGAME = new int[12][64];
+
+	static {
+		int white, black;
+		for (int type = Bitboard.PAWN; type <= Bitboard.KING; type++) {
+			white = Bitboard.index(ColorG.WHITE, type);
+			black = Bitboard.index(ColorG.BLACK, type);
+			for (int square = 0; square < 64; square++) {
+				// The tables start with the line 8 : the white squares are flipped, the black ones are already mirrored
+				MIDDLEGAME[white][square] = MIDDLEGAME_VALUES[type] + MIDDLEGAME_TABLES[type][square ^ 56];
+				ENDGAME[white][square] = ENDGAME_VALUES[type] + ENDGAME_TABLES[type][square ^ 56];
+				MIDDLEGAME[black][square] = -(MIDDLEGAME_VALUES[type] + MIDDLEGAME_TABLES[type][square]);
+				ENDGAME[black][square] = -(ENDGAME_VALUES[type] + ENDGAME_TABLES[type][square]);
+			}
+		}
+	}
+
+	/**
+	 * Get the middlegame score of a piece on a square
+	 * @param piece The piece
+	 * @param square The index of the square
+	 * @return The score, negative for a black piece
+	 */
+	public static int middlegame(final Piece piece, final int square)
+	{
+		return MIDDLEGAME[Bitboard.index(piece.getColor(), piece.getType())][square];
+	}
+
+	/**
+	 * Get the endgame score of a piece on a square
+	 * @param piece The piece
+	 * @param square The index of the square
+	 * @return The score, negative for a black piece
+	 */
+	public static int endgame(final Piece piece, final int square)
+	{
+		return ENDGAME[Bitboard.index(piece.getColor(), piece.getType())][square];
+	}
+
+	/**
+	 * Get the weight of a piece in the phase of the game
+	 * @param piece The piece
+	 * @return The weight (see MAX_PHASE)
+	 */
+	public static int phase(final Piece piece)
+	{
+		return PHASES[piece.getType()];
+	}
+
+	/**
+	 * Evaluate a position for the side to move
+	 * <br>The middlegame and endgame scores kept by the board, plus the pawn structure, are mixed according to its phase.
+	 * @param board The position
+	 * @param pawns The table of the pawn structures
+	 * @return The score in centipawns, positive when the side to move is better
+	 */
+	public static int evaluate(final Chessboard board, final PawnTable pawns)
+	{
+		int entry = pawns.probe(board);
+		int middle = board.getMiddlegameScore() + pawns.getMiddlegame(entry);
+		int end = board.getEndgameScore() + pawns.getEndgame(entry);
+		middle += shelter(board, pawns, entry, ColorG.WHITE) - shelter(board, pawns, entry, ColorG.BLACK);
+
+		int phase = Math.min(board.getPhase(), MAX_PHASE);
+		int res = (middle * phase + end * (MAX_PHASE - phase)) / MAX_PHASE;
+		return (board.getSideToMove() == ColorG.WHITE ? res : -res);
+	}
+
+	/**
+	 * Get the shelter of the pawns in front of a king still on its first two lines
+	 * @param board The position
+	 * @param pawns The table of the pawn structures
+	 * @param entry The index of the pawn structure of the position
+	 * @param color The color of the king
+	 * @return The malus of the shelter (0 if the king left its side)
+	 */
+	private static int shelter(final Chessboard board, final PawnTable pawns, final int entry, final ColorG color)
+	{
+		long king = board.getPieceMask(color, Bitboard.KING);
+		if (king == 0) {
+			return 0;
+		}
+		int square = Bitboard.first(king);
+		int line = (color == ColorG.WHITE ? Bitboard.squareY(square) : 7 - Bitboard.squareY(square));
+		return (line <= 1 ? pawns.getShelter(entry, color, Bitboard.squareX(square)) : 0);
+	}
+}
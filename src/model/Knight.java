@@ -31,31 +31,12 @@ public class Knight extends Piece
 	@Override
 	public boolean isValidMove(final Position pos)
 	{
-		Position piecePos = this.getPosition();
-		return piecePos.manhattanDistance(pos) == 3 &&
-			   !piecePos.isOnSameColumn(pos) &&
-			   !piecePos.isOnSameLine(pos);
+		return (Attacks.knight(this.getPosition().getSquare()) & Bitboard.bit(pos.getSquare())) != 0;
 	}
 	
 	@Override
-	public boolean canMoveTo(final Position pos)
-	{	
-		Piece piece = board.getPiece(pos);
-		ColorG colorP = this.getColor();
-		
-		if (pos == null) {
-			return false;
-		}
-		
-		if (!this.isValidMove(pos)) {
-			return false;
-		}
-		
-		if (piece != null && piece.getColor() == this.getColor()) {
-			return false;
-		}
-		
-		return this.board.checkSquare(this.getPlayer().getKingPos(), this, pos,
-			   	  					  colorP == ColorG.WHITE ? this.board.getBlackPlayer(): this.board.getWhitePlayer());
+	public int getType()
+	{
+		return Bitboard.KNIGHT;
 	}
 }
@@ -0,0 +1,155 @@
+package model;
+
+/**
+ * A class to pack a move in 16 bits : start square (6 bits), end square (6 bits) and flags (4 bits)
+ * <br>The flags tell what kind of move it is, for a promotion the 2 lowest bits give the new piece
+ * @author Hitsuji
+ */
+public final class Move
+{
+	/**
+	 * Disabled default constructor
+	 */
+	private Move() {}
+
+	/** No move (A1 to A1 can't be played) */
+	public static final int NONE = 0;
+
+	/** Flag of a move without capture */
+	public static final int QUIET = 0;
+
+	/** Flag of a pawn going forward of 2 squares */
+	public static final int DOUBLE_PAWN = 1;
+
+	/** Flag of a little castling */
+	public static final int LITTLE_CASTLE = 2;
+
+	/** Flag of a big castling */
+	public static final int BIG_CASTLE = 3;
+
+	/** Flag of a capture */
+	public static final int CAPTURE = 4;
+
+	/** Flag of a 'enPassant' capture */
+	public static final int EN_PASSANT = 5;
+
+	/** Flag of a promotion (add the promotion piece offset and CAPTURE if needed) */
+	public static final int PROMOTION = 8;
+
+	/** Maximum number of moves in a position */
+	public static final int MAX_MOVES = 256;
+
+	/**
+	 * Create a move
+	 * @param start The starting square
+	 * @param end The ending square
+	 * @param flags The kind of move
+	 * @return The packed move
+	 */
+	public static int create(final int start, final int end, final int flags)
+	{
+		return start | (end << 6) | (flags << 12);
+	}
+
+	/**
+	 * Create a promotion move
+	 * @param start The starting square
+	 * @param end The ending square
+	 * @param type The type of the new piece (from KNIGHT to QUEEN, see Bitboard.java)
+	 * @param capture If the pawn captures a piece
+	 * @return The packed move
+	 */
+	public static int promotion(final int start, final int end, final int type, final boolean capture)
+	{
+		return create(start, end, PROMOTION | (capture ? CAPTURE : 0) | (type - Bitboard.KNIGHT));
+	}
+
+	/**
+	 * Get the starting square of a move
+	 * @param move The packed move
+	 * @return The index of the square
+	 */
+	public static int getStart(final int move)
+	{
+		return move & 0x3F;
+	}
+
+	/**
+	 * Get the ending square of a move
+	 * @param move The packed move
+	 * @return The index of the square
+	 */
+	public static int getEnd(final int move)
+	{
+		return (move >>> 6) & 0x3F;
+	}
+
+	/**
+	 * Get the flags of a move
+	 * @param move The packed move
+	 * @return The kind of move
+	 */
+	public static int getFlags(final int move)
+	{
+		return (move >>> 12) & 0xF;
+	}
+
+	/**
+	 * Check if the move captures a piece ('enPassant' included)
+	 * @param move The packed move
+	 * @return true if it's a capture
+	 */
+	public static boolean isCapture(final int move)
+	{
+		return (getFlags(move) & CAPTURE) != 0;
+	}
+
+	/**
+	 * Check if the move is a promotion
+	 * @param move The packed move
+	 * @return true if it's a promotion
+	 */
+	public static boolean isPromotion(final int move)
+	{
+		return (getFlags(move) & PROMOTION) != 0;
+	}
+
+	/**
+	 * Check if the move is a castling
+	 * @param move The packed move
+	 * @return true if it's a little or a big castling
+	 */
+	public static boolean isCastle(final int move)
+	{
+		int flags = getFlags(move);
+		return flags == LITTLE_CASTLE || flags == BIG_CASTLE;
+	}
+
+	/**
+	 * Get the new piece of a promotion
+	 * @param move The packed move
+	 * @return The type of the piece (see Bitboard.java)
+	 */
+	public static int getPromotionType(final int move)
+	{
+		return Bitboard.KNIGHT + (getFlags(move) & 3);
+	}
+
+	/**
+	 * Give the coordinate notation of a move (like 'e2e4' or 'e7e8q')
+	 * @param move The packed move
+	 * @return The string of the move
+	 */
+	public static String toString(final int move)
+	{
+		int start = getStart(move);
+		int end = getEnd(move);
+		String res = "" + (char) (Bitboard.squareX(start) + 97) + (Bitboard.squareY(start) + 1)
+					 + (char) (Bitboard.squareX(end) + 97) + (Bitboard.squareY(end) + 1);
+
+		if (isPromotion(move)) {
+			res += "nbrq".charAt(getPromotionType(move) - Bitboard.KNIGHT);
+		}
+		return res;
+	}
+}
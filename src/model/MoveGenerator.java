@@ -0,0 +1,289 @@
+package model;
+
+import utils.ColorG;
+
+/**
+ * A class to generate the legal moves of a position
+ * <br>The pieces giving check and the pinned pieces are computed once, then each piece
+ * only keeps the squares allowed by them, so no move has to be tried on the board.
+ * @author Hitsuji
+ */
+public final class MoveGenerator
+{
+	/**
+	 * Disabled default constructor
+	 */
+	private MoveGenerator() {}
+
+	/**
+	 * Generate all the legal moves of a color
+	 * @param board The board of the game
+	 * @param color The color of the moving pieces
+	 * @param moves The array filled with the packed moves (see Move.java), at least Move.MAX_MOVES long
+	 * @return The number of moves generated
+	 */
+	public static int generate(final Chessboard board, final ColorG color, final int[] moves)
+	{
+		return generate(board, color, moves, Move.MAX_MOVES, false);
+	}
+	
+	/**
+	 * Generate the legal captures and promotions of a color, the quiet moves are never enumerated
+	 * <br>In check, only the captures and promotions that stop the check are generated.
+	 * @param board The board of the game
+	 * @param color The color of the moving pieces
+	 * @param moves The array filled with the packed moves (see Move.java), at least Move.MAX_MOVES long
+	 * @return The number of moves generated
+	 */
+	public static int generateCaptures(final Chessboard board, final ColorG color, final int[] moves)
+	{
+		return generate(board, color, moves, Move.MAX_MOVES, true);
+	}
+	
+	/**
+	 * Check if a color has at least one legal move, the generation stops at the first move found
+	 * @param board The board of the game
+	 * @param color The color of the moving pieces
+	 * @param moves The array used to generate the moves, at least Move.MAX_MOVES long
+	 * @return true if there's a legal move
+	 */
+	public static boolean hasLegalMove(final Chessboard board, final ColorG color, final int[] moves)
+	{
+		return generate(board, color, moves, 1, false) > 0;
+	}
+	
+	/**
+	 * Generate the legal moves of a color until enough moves are found
+	 * <br>The king moves are generated first, they are the most likely to exist.
+	 * @param board The board of the game
+	 * @param color The color of the moving pieces
+	 * @param moves The array filled with the packed moves
+	 * @param limit The number of moves after which the generation can stop
+	 * @param captures true to generate only the captures and the promotions
+	 * @return The number of moves generated (at least limit if there are enough moves)
+	 */
+	private static int generate(final Chessboard board, final ColorG color, final int[] moves, final int limit,
+								final boolean captures)
+	{
+		ColorG enemy = (color == ColorG.WHITE ? ColorG.BLACK : ColorG.WHITE);
+		long own = board.getColorMask(color);
+		long opponent = board.getColorMask(enemy);
+		long occupied = board.getOccupied();
+		long kingMask = board.getPieceMask(color, Bitboard.KING);
+		// Squares where the pieces (not the pawns) can go
+		long allowed = (captures ? opponent : ~own);
+		int nb = 0;
+
+		if (kingMask == 0) {
+			return nb;
+		}
+		int kingSquare = Bitboard.first(kingMask);
+		long checkers = board.attackersTo(kingSquare, occupied) & opponent;
+		long pinned = pinnedPieces(board, color, kingSquare);
+
+		// The king can go on every square not attacked once it left its square
+		long targets = Attacks.king(kingSquare) & allowed;
+		int end;
+		while (targets != 0) {
+			end = Bitboard.first(targets);
+			targets &= targets - 1;
+			if ((board.attackersTo(end, occupied ^ kingMask) & opponent) == 0) {
+				moves[nb++] = Move.create(kingSquare, end, (opponent & Bitboard.bit(end)) != 0 ? Move.CAPTURE : Move.QUIET);
+			}
+		}
+
+		// In double check only the king can move
+		if (nb >= limit || Bitboard.count(checkers) > 1) {
+			return nb;
+		}
+
+		// Squares where a piece must go to stop the check (capture or block)
+		long checkMask = -1L;
+		if (checkers != 0) {
+			checkMask = checkers | Attacks.between(kingSquare, Bitboard.first(checkers));
+		} else if (!captures) {
+			nb = castlings(board, color, enemy, kingSquare, moves, nb);
+		}
+
+		nb = pawnMoves(board, color, kingSquare, checkMask, pinned, moves, nb, limit, captures);
+
+		long pieces = own & ~kingMask & ~board.getPieceMask(color, Bitboard.PAWN);
+		int start;
+		Piece piece;
+		while (pieces != 0 && nb < limit) {
+			start = Bitboard.first(pieces);
+			pieces &= pieces - 1;
+			piece = board.getPiece(start);
+
+			targets = Attacks.piece(color, piece.getType(), start, occupied) & allowed & checkMask;
+			if ((pinned & Bitboard.bit(start)) != 0) {
+				targets &= Attacks.line(kingSquare, start);
+			}
+			while (targets != 0) {
+				end = Bitboard.first(targets);
+				targets &= targets - 1;
+				moves[nb++] = Move.create(start, end, (opponent & Bitboard.bit(end)) != 0 ? Move.CAPTURE : Move.QUIET);
+			}
+		}
+		return nb;
+	}
+
+	/**
+	 * Get the pieces that can't leave the line between their king and an enemy slider
+	 * @param board The board of the game
+	 * @param color The color of the king
+	 * @param kingSquare The square of the king
+	 * @return The mask of the pinned pieces
+	 */
+	private static long pinnedPieces(final Chessboard board, final ColorG color, final int kingSquare)
+	{
+		ColorG enemy = (color == ColorG.WHITE ? ColorG.BLACK : ColorG.WHITE);
+		long opponent = board.getColorMask(enemy);
+		long queens = board.getPieceMask(enemy, Bitboard.QUEEN);
+		long pinned = 0L;
+
+		// Enemy sliders aiming at the king if only our pieces were removed
+		long snipers = (Attacks.rook(kingSquare, opponent) & (board.getPieceMask(enemy, Bitboard.ROOK) | queens))
+					 | (Attacks.bishop(kingSquare, opponent) & (board.getPieceMask(enemy, Bitboard.BISHOP) | queens));
+		long between;
+		while (snipers != 0) {
+			between = Attacks.between(kingSquare, Bitboard.first(snipers)) & board.getOccupied();
+			snipers &= snipers - 1;
+			if (Bitboard.count(between) == 1) {
+				pinned |= between & board.getColorMask(color);
+			}
+		}
+		return pinned;
+	}
+
+	/**
+	 * Add the moves of the pawns
+	 * @param board The board of the game
+	 * @param color The color of the pawns
+	 * @param kingSquare The square of the king
+	 * @param checkMask The squares allowed because of a check
+	 * @param pinned The pinned pieces
+	 * @param moves The array of moves to fill
+	 * @param nb The number of moves already in the array
+	 * @param limit The number of moves after which the generation can stop
+	 * @param captures true to generate only the captures and the promotions
+	 * @return The new number of moves
+	 */
+	private static int pawnMoves(final Chessboard board, final ColorG color, final int kingSquare, final long checkMask,
+								 final long pinned, final int[] moves, int nb, final int limit, final boolean captures)
+	{
+		ColorG enemy = (color == ColorG.WHITE ? ColorG.BLACK : ColorG.WHITE);
+		long opponent = board.getColorMask(enemy);
+		long occupied = board.getOccupied();
+		long pawns = board.getPieceMask(color, Bitboard.PAWN);
+		int forward = (color == ColorG.WHITE ? 8 : -8);
+		int startLine = (color == ColorG.WHITE ? 1 : 6);
+		int lastLine = (color == ColorG.WHITE ? 7 : 0);
+		Piece lastPawn = board.getLastPawn();
+		int start, end;
+		long allowed, targets;
+
+		while (pawns != 0 && nb < limit) {
+			start = Bitboard.first(pawns);
+			pawns &= pawns - 1;
+			allowed = checkMask;
+			if ((pinned & Bitboard.bit(start)) != 0) {
+				allowed &= Attacks.line(kingSquare, start);
+			}
+
+			// Going forward (only the promotions for the captures)
+			end = start + forward;
+			if ((occupied & Bitboard.bit(end)) == 0 && (!captures || Bitboard.squareY(end) == lastLine)) {
+				if ((allowed & Bitboard.bit(end)) != 0) {
+					nb = addPawnMove(start, end, false, lastLine, moves, nb);
+				}
+				end += forward;
+				if (!captures && Bitboard.squareY(start) == startLine && (occupied & Bitboard.bit(end)) == 0
+					&& (allowed & Bitboard.bit(end)) != 0) {
+					moves[nb++] = Move.create(start, end, Move.DOUBLE_PAWN);
+				}
+			}
+
+			// Captures
+			targets = Attacks.pawn(color, start) & opponent & allowed;
+			while (targets != 0) {
+				end = Bitboard.first(targets);
+				targets &= targets - 1;
+				nb = addPawnMove(start, end, true, lastLine, moves, nb);
+			}
+
+			// 'enPassant' : the king safety is checked with the two pawns removed from the board
+			if (lastPawn != null && lastPawn.getColor() == enemy) {
+				int passantSquare = lastPawn.getPosition().getSquare();
+				end = passantSquare + forward;
+				if ((Attacks.pawn(color, start) & Bitboard.bit(end)) != 0) {
+					long after = (occupied ^ Bitboard.bit(start) ^ Bitboard.bit(passantSquare)) | Bitboard.bit(end);
+					long attackers = board.attackersTo(kingSquare, after) & opponent & ~Bitboard.bit(passantSquare);
+					if (attackers == 0) {
+						moves[nb++] = Move.create(start, end, Move.EN_PASSANT);
+					}
+				}
+			}
+		}
+		return nb;
+	}
+
+	/**
+	 * Add a pawn move, or the 4 promotions if it reaches the last line
+	 * @param start The starting square
+	 * @param end The ending square
+	 * @param capture If the pawn captures a piece
+	 * @param lastLine The y position of the last line for the pawn
+	 * @param moves The array of moves to fill
+	 * @param nb The number of moves already in the array
+	 * @return The new number of moves
+	 */
+	private static int addPawnMove(final int start, final int end, final boolean capture, final int lastLine,
+								   final int[] moves, int nb)
+	{
+		if (Bitboard.squareY(end) == lastLine) {
+			for (int type = Bitboard.QUEEN; type >= Bitboard.KNIGHT; type--) {
+				moves[nb++] = Move.promotion(start, end, type, capture);
+			}
+		} else {
+			moves[nb++] = Move.create(start, end, capture ? Move.CAPTURE : Move.QUIET);
+		}
+		return nb;
+	}
+
+	/**
+	 * Add the castlings (the king must not be in check)
+	 * @param board The board of the game
+	 * @param color The color of the king
+	 * @param enemy The color of the opponent
+	 * @param kingSquare The square of the king
+	 * @param moves The array of moves to fill
+	 * @param nb The number of moves already in the array
+	 * @return The new number of moves
+	 */
+	private static int castlings(final Chessboard board, final ColorG color, final ColorG enemy, final int kingSquare,
+								 final int[] moves, int nb)
+	{
+		int yPos = (color == ColorG.WHITE ? 0 : 7);
+		if (kingSquare != Bitboard.square(4, yPos)) {
+			return nb;
+		}
+
+		long rooks = board.getPieceMask(color, Bitboard.ROOK);
+		long occupied = board.getOccupied();
+
+		if (board.canCastle(color, true) && (rooks & Bitboard.bit(Bitboard.square(7, yPos))) != 0
+			&& (Attacks.between(kingSquare, Bitboard.square(7, yPos)) & occupied) == 0
+			&& !board.isSquareAttacked(kingSquare + 1, enemy)
+			&& !board.isSquareAttacked(kingSquare + 2, enemy)) {
+			moves[nb++] = Move.create(kingSquare, kingSquare + 2, Move.LITTLE_CASTLE);
+		}
+		if (board.canCastle(color, false) && (rooks & Bitboard.bit(Bitboard.square(0, yPos))) != 0
+			&& (Attacks.between(kingSquare, Bitboard.square(0, yPos)) & occupied) == 0
+			&& !board.isSquareAttacked(kingSquare - 1, enemy)
+			&& !board.isSquareAttacked(kingSquare - 2, enemy)) {
+			moves[nb++] = Move.create(kingSquare, kingSquare - 2, Move.BIG_CASTLE);
+		}
+		return nb;
+	}
+}
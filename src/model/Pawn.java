@@ -10,13 +10,6 @@ import utils.Symbol;
  */
 public class Pawn extends Piece
 {
-	/** Boolean to know if the pawn already moved */
-	private boolean hasMoved;
-	/** Boolean to know if the pawn did a 'enPassant' */
-	private boolean enPassant;
-	/** Enemy piece involved in the 'enPassant' */
-	private Piece piecePassant;
-	
 	/**
 	 * Constructor of the class
 	 * @param board The chessboard that contains the piece
@@ -33,76 +26,45 @@ public class Pawn extends Piece
 			  (color == ColorG.WHITE ? Symbol.WHITE_PAWN : Symbol.BLACK_PAWN),
 			  player,
 			  value);
-		this.hasMoved = false;
-		this.enPassant = false;
 	}
 	
 	@Override
 	public boolean isValidMove(final Position pos)
 	{
-		Position piecePos = this.getPosition();
-		int distance = piecePos.manhattanDistance(pos);
-		
-		if (distance <= 0 || 3 <= distance) {return false;}
+		int start = this.getPosition().getSquare();
+		int end = pos.getSquare();
+		int forward = (this.isWhite() ? 8 : -8);
+		long occupied = this.board.getOccupied();
 		
-		if (distance == 2 && piecePos.isOnSameDiagonal(pos)) {
-			Piece target = board.getPiece(pos);
+		if ((Attacks.pawn(this.getColor(), start) & Bitboard.bit(end)) != 0) {
+			Piece target = board.getPiece(end);
 			
 			if (target != null) {
 				return this.getColor() != target.getColor();
-				
-			} else {
-				Piece enPassant = this.board.getLastPawn();
-				Position passantPos;
-				Position oldPassantPos;
-				
-				if (enPassant == null || enPassant.getColor() == this.getColor()) {return false;}
-				passantPos = enPassant.getPosition();
-				oldPassantPos = new Position(passantPos.getX(),
-											(passantPos.getY() + (enPassant.getColor() == ColorG.WHITE ? -1 : 1)));
-				
-				if (pos.equals(oldPassantPos)) {
-					this.enPassant = true;
-					this.piecePassant = enPassant;
-					return true;
-				}
 			}
+			
+			Piece enPassant = this.board.getLastPawn();
+			if (enPassant == null || enPassant.getColor() == this.getColor()) {return false;}
+			
+			// The target must be the square skipped by the last pawn hop
+			return end == enPassant.getPosition().getSquare() + forward;
 		}
 		
-		if ((this.hasMoved && distance == 2) || !piecePos.isOnSameColumn(pos)) {
+		// A pawn can only go forward on an empty square
+		if ((occupied & Bitboard.bit(end)) != 0) {
 			return false;
 		}
-		
-		if (this.isWhite()) {
-			return piecePos.getY() < pos.getY();
-		} else {
-			return piecePos.getY() > pos.getY();
+		if (end == start + forward) {
+			return true;
 		}
+		// The first move of a pawn (still on its starting line) can be 2 squares forward
+		return Bitboard.squareY(start) == (this.isWhite() ? 1 : 6) && end == start + 2 * forward
+			   && (occupied & Bitboard.bit(start + forward)) == 0;
 	}
 	
 	@Override
-	public Piece moveTo(final Position pos)
+	public int getType()
 	{
-		Position piecePos = this.getPosition();
-		Piece oldPiece;
-		if (this.enPassant) {
-			oldPiece = this.piecePassant;
-			this.board.setPiece(null, oldPiece.getPosition());
-		} else {
-			oldPiece = this.board.getPiece(pos);
-		}
-		
-		if (piecePos.manhattanDistance(pos) == 2 && piecePos.isOnSameColumn(pos)) {
-			this.board.setLastPawn(this);
-		} else {
-			this.board.setLastPawn(null);
-		}
-		
-		this.hasMoved = true;
-		this.board.setPiece(null, piecePos);
-		this.board.setPiece(this, pos);
-		this.setPosition(pos);
-		
-		return oldPiece;
+		return Bitboard.PAWN;
 	}
 }
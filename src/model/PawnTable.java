@@ -0,0 +1,222 @@
+package model;
+
+import utils.ColorG;
+
+import java.util.Arrays;
+
+/**
+ * Table of the evaluations of the pawn structures already met (pawn hash)
+ * <br>The pawns move much less often than the other pieces, so the structure of a position is almost always
+ * in the table : its evaluation (doubled, isolated, backward and passed pawns, king shelter) is only computed
+ * when it's missing. Each entry is found by the pawn key of the board (see Chessboard.getPawnKey) and
+ * replaced by the next structure with the same index.
+ * <br>A table is not shared between threads.
+ * @author Hitsuji
+ */
+public class PawnTable
+{
+	/** Malus of a pawn with another pawn of its color in front of it (middlegame, endgame) */
+	private static final int[] DOUBLED = {-10, -20};
+	/** Malus of a pawn without pawn of its color on the next columns */
+	private static final int[] ISOLATED = {-10, -15};
+	/** Malus of a pawn that can't be defended by a pawn and can't go forward safely */
+	private static final int[] BACKWARD = {-8, -10};
+	/** Bonus of a passed pawn on each line (from its side) in the middlegame */
+	private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+	/** Bonus of a passed pawn on each line (from its side) in the endgame */
+	private static final int[] PASSED_ENDGAME = {0, 10, 20, 35, 60, 100, 150, 0};
+	/** Malus of a column next to the king without pawn of its color, or with a pawn on the second, third or farther line */
+	private static final int[] SHELTER = {-25, 0, -10, -20};
+
+	/** Squares of the columns next to each column */
+	private static final long[] NEIGHBOR_FILES = new long[8];
+	/** Squares in front of each square, on its column and the next ones, for each color (see ColorG.ordinal) */
+	private static final long[][] PASSED_MASKS = new long[2][64];
+	/** Squares in front of each square on its column, for each color */
+	private static final long[][] FRONT_MASKS = new long[2][64];
+	/** Squares on the next columns of each square, on its line or behind it, for each color */
+	private static final long[][] SUPPORT_MASKS = new long[2][64];
+
+	static {
+		long file;
+		for (int x = 0; x < 8; x++) {
+			NEIGHBOR_FILES[x] = (x > 0 ? Bitboard.FILE_A << (x - 1) : 0L) | (x < 7 ? Bitboard.FILE_A << (x + 1) : 0L);
+		}
+		for (int square = 0; square < 64; square++) {
+			file = Bitboard.FILE_A << Bitboard.squareX(square);
+			for (int y = 0; y < 8; y++) {
+				long rank = Bitboard.RANK_1 << (8 * y);
+				if (y > Bitboard.squareY(square)) {
+					FRONT_MASKS[0][square] |= file & rank;
+					PASSED_MASKS[0][square] |= (file | NEIGHBOR_FILES[Bitboard.squareX(square)]) & rank;
+					SUPPORT_MASKS[1][square] |= NEIGHBOR_FILES[Bitboard.squareX(square)] & rank;
+				}
+				if (y < Bitboard.squareY(square)) {
+					FRONT_MASKS[1][square] |= file & rank;
+					PASSED_MASKS[1][square] |= (file | NEIGHBOR_FILES[Bitboard.squareX(square)]) & rank;
+					SUPPORT_MASKS[0][square] |= NEIGHBOR_FILES[Bitboard.squareX(square)] & rank;
+				}
+				if (y == Bitboard.squareY(square)) {
+					SUPPORT_MASKS[0][square] |= NEIGHBOR_FILES[Bitboard.squareX(square)] & rank;
+					SUPPORT_MASKS[1][square] |= NEIGHBOR_FILES[Bitboard.squareX(square)] & rank;
+				}
+			}
+		}
+	}
+
+	/** Pawn key of the structure of each entry */
+	private long[] keys;
+	/** Middlegame score of the structure of each entry (positive when white is better) */
+	private int[] middlegame;
+	/** Endgame score of the structure of each entry */
+	private int[] endgame;
+	/** Shelter of a king of each color on each column (16 values per entry, white first) */
+	private byte[] shelters;
+	/** Mask to get the index of an entry */
+	private int mask;
+
+	/**
+	 * Constructor of the class
+	 * @param size The number of entries (rounded down to a power of 2)
+	 * @throws IllegalArgumentException Error send if the size is not positive
+	 */
+	public PawnTable(final int size)
+	{
+		if (size <= 0) {
+			throw new IllegalArgumentException("The size of the table must be positive : " + size);
+		}
+		int nb = Integer.highestOneBit(size);
+		this.keys = new long[nb];
+		this.middlegame = new int[nb];
+		this.endgame = new int[nb];
+		this.shelters = new byte[nb * 16];
+		this.mask = nb - 1;
+		// No structure has this key, the entries are all empty
+		Arrays.fill(this.keys, -1L);
+	}
+
+	/**
+	 * Find the entry of the pawn structure of a position, it's evaluated if it's not in the table
+	 * @param board The position
+	 * @return The index of the entry (see getMiddlegame, getEndgame and getShelter)
+	 */
+	public int probe(final Chessboard board)
+	{
+		long key = board.getPawnKey();
+		int index = (int) key & this.mask;
+		if (this.keys[index] != key) {
+			this.keys[index] = key;
+			this.evaluate(board, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Get the middlegame score of a pawn structure
+	 * @param index The index of the entry
+	 * @return The score in centipawns, positive when white is better
+	 */
+	public int getMiddlegame(final int index)
+	{
+		return this.middlegame[index];
+	}
+
+	/**
+	 * Get the endgame score of a pawn structure
+	 * @param index The index of the entry
+	 * @return The score in centipawns, positive when white is better
+	 */
+	public int getEndgame(final int index)
+	{
+		return this.endgame[index];
+	}
+
+	/**
+	 * Get the shelter of the pawns in front of a king
+	 * @param index The index of the entry
+	 * @param color The color of the king
+	 * @param x The column of the king
+	 * @return The malus of the missing or advanced pawns of the king's column and the next ones (negative or 0)
+	 */
+	public int getShelter(final int index, final ColorG color, final int x)
+	{
+		return this.shelters[index * 16 + color.ordinal() * 8 + x];
+	}
+
+	/**
+	 * Evaluate a pawn structure and store it in an entry
+	 * @param board The position
+	 * @param index The index of the entry
+	 */
+	private void evaluate(final Chessboard board, final int index)
+	{
+		int middle = 0, end = 0;
+		for (ColorG color : ColorG.values()) {
+			int sign = (color == ColorG.WHITE ? 1 : -1);
+			int side = color.ordinal();
+			ColorG enemy = (color == ColorG.WHITE ? ColorG.BLACK : ColorG.WHITE);
+			long own = board.getPieceMask(color, Bitboard.PAWN);
+			long opponent = board.getPieceMask(enemy, Bitboard.PAWN);
+			int forward = (color == ColorG.WHITE ? 8 : -8);
+			int square, x, line, stop;
+
+			for (long pawns = own; pawns != 0; pawns &= pawns - 1) {
+				square = Bitboard.first(pawns);
+				x = Bitboard.squareX(square);
+				line = (color == ColorG.WHITE ? Bitboard.squareY(square) : 7 - Bitboard.squareY(square));
+
+				if ((own & FRONT_MASKS[side][square]) != 0) {
+					middle += sign * DOUBLED[0];
+					end += sign * DOUBLED[1];
+				}
+				if ((own & NEIGHBOR_FILES[x]) == 0) {
+					middle += sign * ISOLATED[0];
+					end += sign * ISOLATED[1];
+				} else if ((own & SUPPORT_MASKS[side][square]) == 0) {
+					// Nothing can defend it and an enemy pawn controls the square in front of it
+					stop = square + forward;
+					if ((Attacks.pawn(color, stop) & opponent) != 0) {
+						middle += sign * BACKWARD[0];
+						end += sign * BACKWARD[1];
+					}
+				}
+				if ((opponent & PASSED_MASKS[side][square]) == 0 && (own & FRONT_MASKS[side][square]) == 0) {
+					middle += sign * PASSED_MIDDLEGAME[line];
+					end += sign * PASSED_ENDGAME[line];
+				}
+			}
+
+			for (x = 0; x < 8; x++) {
+				this.shelters[index * 16 + side * 8 + x] = (byte) shelter(own, color, x);
+			}
+		}
+		this.middlegame[index] = middle;
+		this.endgame[index] = end;
+	}
+
+	/**
+	 * Compute the shelter of the pawns in front of a king
+	 * @param own The pawns of the color of the king
+	 * @param color The color of the king
+	 * @param x The column of the king
+	 * @return The malus of the columns around the king
+	 */
+	private static int shelter(final long own, final ColorG color, final int x)
+	{
+		int res = 0;
+		long pawns;
+		int line;
+		for (int column = Math.max(0, x - 1); column <= Math.min(7, x + 1); column++) {
+			pawns = own & (Bitboard.FILE_A << column);
+			if (pawns == 0) {
+				res += SHELTER[0];
+				continue;
+			}
+			// The pawn the closest to the king protects it
+			line = (color == ColorG.WHITE ? Bitboard.squareY(Bitboard.first(pawns))
+					: 7 - Bitboard.squareY(63 - Long.numberOfLeadingZeros(pawns)));
+			res += SHELTER[Math.min(line, 3)];
+		}
+		return res;
+	}
+}
@@ -0,0 +1,137 @@
+package model;
+
+import utils.Notation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * A game read from a PGN file (see PgnReader.java) : its tags and its moves, not checked yet
+ * @author Hitsuji
+ */
+public class PgnGame
+{
+	/** Tags of the game (like 'White' or 'Result') in the order of the file */
+	private LinkedHashMap<String, String> tags;
+	/** Moves of the game in standard algebraic notation, without the comments and the variations */
+	private ArrayList<String> moves;
+	/** Result at the end of the moves ('1-0', '0-1', '1/2-1/2' or '*'), null if it's missing */
+	private String result;
+	/** Offset of the game in the file in bytes */
+	private long offset;
+
+	/**
+	 * Constructor of the class
+	 * @param offset The offset of the game in the file in bytes
+	 */
+	public PgnGame(final long offset)
+	{
+		this.tags = new LinkedHashMap<String, String>();
+		this.moves = new ArrayList<String>();
+		this.result = null;
+		this.offset = offset;
+	}
+
+	/**
+	 * Get the value of a tag
+	 * @param name The name of the tag (like 'White')
+	 * @return The value, null if the game doesn't have the tag
+	 */
+	public String getTag(final String name)
+	{
+		return this.tags.get(name);
+	}
+
+	/**
+	 * Get all the tags of the game
+	 * @return The values by name, in the order of the file
+	 */
+	public LinkedHashMap<String, String> getTags()
+	{
+		return this.tags;
+	}
+
+	/**
+	 * Add a tag to the game
+	 * @param name The name of the tag
+	 * @param value The value of the tag
+	 */
+	public void addTag(final String name, final String value)
+	{
+		this.tags.put(name, value);
+	}
+
+	/**
+	 * Get the moves of the game
+	 * @return The moves in standard algebraic notation (like 'Nf3')
+	 */
+	public ArrayList<String> getMoves()
+	{
+		return this.moves;
+	}
+
+	/**
+	 * Add a move at the end of the game
+	 * @param move The move in standard algebraic notation
+	 */
+	public void addMove(final String move)
+	{
+		this.moves.add(move);
+	}
+
+	/**
+	 * Get the result written after the moves
+	 * @return The result ('1-0', '0-1', '1/2-1/2' or '*'), null if it's missing
+	 */
+	public String getResult()
+	{
+		return this.result;
+	}
+
+	/**
+	 * Change the result written after the moves
+	 * @param result The result
+	 */
+	public void setResult(final String result)
+	{
+		this.result = result;
+	}
+
+	/**
+	 * Get the offset of the game in the file
+	 * @return The offset in bytes
+	 */
+	public long getOffset()
+	{
+		return this.offset;
+	}
+
+	/**
+	 * Get the starting position of the game (tag 'FEN' for the games not starting from the usual position)
+	 * @return The position in Forsyth-Edwards Notation
+	 */
+	public String getStartFen()
+	{
+		String fen = this.tags.get("FEN");
+		return (fen != null ? fen : Chessboard.START_FEN);
+	}
+
+	/**
+	 * Replay the moves of the game from its starting position to check them
+	 * @return The board after the last move
+	 * @throws IllegalArgumentException Error send if the starting position or a move is wrong
+	 */
+	public Chessboard replay()
+	{
+		Chessboard board = new Chessboard(null, null, this.getStartFen());
+		int move;
+		for (int i = 0; i < this.moves.size(); i++) {
+			move = Notation.parseMove(board, this.moves.get(i));
+			if (move == Move.NONE) {
+				throw new IllegalArgumentException("Illegal or ambiguous move at the ply " + (i + 1) + " : " + this.moves.get(i));
+			}
+			board.makeMove(move);
+		}
+		return board;
+	}
+}
@@ -0,0 +1,360 @@
+package model;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reader of the games of a PGN file, one game after the other
+ * <br>The file is never loaded : only a window of it is mapped in memory, and moved forward when a game goes past
+ * its end (the game is then read again from the start of the new window). A file of several GB is read with the
+ * memory of a window and of one game.
+ * <br>The comments, the variations and the numeric annotations are skipped, the moves are not checked
+ * (see PgnGame.replay).
+ * @author Hitsuji
+ */
+public class PgnReader implements AutoCloseable
+{
+	/** Default size of the window in bytes */
+	public static final int WINDOW_SIZE = 1 << 26;
+
+	/** The file */
+	private FileChannel channel;
+	/** Size of the file in bytes */
+	private long size;
+	/** Size of the window in bytes */
+	private int windowSize;
+	/** Part of the file mapped */
+	private MappedByteBuffer window;
+	/** Offset of the window in the file */
+	private long windowOffset;
+	/** Position of the next byte to read in the window */
+	private int position;
+	/** Number of bytes of the window */
+	private int limit;
+	/** Bytes of the text being read (tag value or move) */
+	private byte[] text;
+	/** Number of bytes in text */
+	private int textLength;
+
+	/**
+	 * Constructor of the class
+	 * @param path The path of the file
+	 * @throws IOException Error send if the file can't be opened
+	 */
+	public PgnReader(final Path path) throws IOException
+	{
+		this(path, WINDOW_SIZE);
+	}
+
+	/**
+	 * Constructor of the class with a given window
+	 * @param path The path of the file
+	 * @param windowSize The size of the window in bytes, bigger than the longest game
+	 * @throws IOException Error send if the file can't be opened
+	 * @throws IllegalArgumentException Error send if the size is not positive
+	 */
+	public PgnReader(final Path path, final int windowSize) throws IOException
+	{
+		if (windowSize <= 0) {
+			throw new IllegalArgumentException("The size of the window must be positive : " + windowSize);
+		}
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.size = this.channel.size();
+		this.windowSize = windowSize;
+		this.text = new byte[256];
+		this.map(0);
+	}
+
+	/**
+	 * Map the window at an offset of the file
+	 * @param offset The offset of the window in bytes
+	 * @throws IOException Error send if the file can't be mapped
+	 */
+	private void map(final long offset) throws IOException
+	{
+		this.windowOffset = offset;
+		this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(this.windowSize, this.size - offset));
+		this.position = 0;
+		this.limit = this.window.limit();
+	}
+
+	/**
+	 * Get the size of the file
+	 * @return The size in bytes
+	 */
+	public long getSize()
+	{
+		return this.size;
+	}
+
+	/**
+	 * Get the number of bytes already read
+	 * @return The offset in the file of the next game
+	 */
+	public long getOffset()
+	{
+		return this.windowOffset + this.position;
+	}
+
+	/**
+	 * Read the next game of the file
+	 * @return The game, null at the end of the file
+	 * @throws IOException Error send if the file can't be read or if a game is bigger than the window
+	 */
+	public PgnGame next() throws IOException
+	{
+		while (true) {
+			this.skipSpaces();
+			if (this.position == this.limit) {
+				if (this.isFileEnd()) {
+					return null;
+				}
+				this.map(this.windowOffset + this.position);
+				continue;
+			}
+
+			int start = this.position;
+			PgnGame game = new PgnGame(this.windowOffset + start);
+			if (this.readGame(game)) {
+				return game;
+			}
+			// The game goes past the window : the next window starts with it
+			if (start == 0) {
+				throw new IOException("The game at the offset " + this.windowOffset + " is bigger than the window");
+			}
+			this.map(this.windowOffset + start);
+		}
+	}
+
+	/**
+	 * Check if the window reaches the end of the file
+	 * @return true if the window ends with the file
+	 */
+	private boolean isFileEnd()
+	{
+		return this.windowOffset + this.limit >= this.size;
+	}
+
+	/**
+	 * Read a game : its tags, then its moves until its result or the tags of the next game
+	 * @param game The game to fill
+	 * @return false if the window ended before the game (a game cut by the end of the file is kept)
+	 */
+	private boolean readGame(final PgnGame game)
+	{
+		boolean moves = false;
+		while (true) {
+			this.skipSpaces();
+			if (this.position == this.limit) {
+				return this.isFileEnd();
+			}
+
+			byte c = this.window.get(this.position);
+			if (c == '[') {
+				if (moves) {
+					// The result is missing, the next game starts
+					return true;
+				}
+				if (!this.readTag(game)) {
+					return this.isFileEnd();
+				}
+			} else if (c == '{' || c == ';' || c == '%') {
+				if (!this.skipTo(c == '{' ? '}' : '\n')) {
+					return this.isFileEnd();
+				}
+			} else if (c == '(') {
+				if (!this.skipVariation()) {
+					return this.isFileEnd();
+				}
+			} else {
+				if (!this.readToken()) {
+					return this.isFileEnd();
+				}
+				String token = new String(this.text, 0, this.textLength, StandardCharsets.ISO_8859_1);
+				if (token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*")) {
+					game.setResult(token);
+					return true;
+				}
+				String move = moveOf(token);
+				if (move != null) {
+					game.addMove(move);
+				}
+				moves = true;
+			}
+		}
+	}
+
+	/**
+	 * Get the move of a token of the moves
+	 * @param token The token (like 'Nf3', '12.', '12...Nf6' or '$1')
+	 * @return The move, null if the token is only a number or an annotation
+	 */
+	private static String moveOf(final String token)
+	{
+		if (token.startsWith("$") || token.startsWith("0-0")) {
+			return (token.startsWith("$") ? null : token);
+		}
+		// The number of the move, maybe not separated from the move
+		int i = 0;
+		while (i < token.length() && (Character.isDigit(token.charAt(i)) || token.charAt(i) == '.')) {
+			i++;
+		}
+		return (i < token.length() ? token.substring(i) : null);
+	}
+
+	/**
+	 * Read a tag like '[White "Kasparov, Garry"]'
+	 * @param game The game to fill
+	 * @return false if the window ended before the tag
+	 */
+	private boolean readTag(final PgnGame game)
+	{
+		this.position++;
+		this.textLength = 0;
+		byte c;
+		while (this.position < this.limit && !isSpace(c = this.window.get(this.position)) && c != '"' && c != ']') {
+			this.append(c);
+			this.position++;
+		}
+		String name = new String(this.text, 0, this.textLength, StandardCharsets.ISO_8859_1);
+
+		// The value is between quotes, a quote inside is preceded by a backslash
+		this.textLength = 0;
+		boolean value = false, escaped = false;
+		while (this.position < this.limit) {
+			c = this.window.get(this.position++);
+			if (!value) {
+				if (c == '"') {
+					value = true;
+				} else if (c == ']') {
+					game.addTag(name, "");
+					return true;
+				}
+			} else if (escaped) {
+				this.append(c);
+				escaped = false;
+			} else if (c == '\\') {
+				escaped = true;
+			} else if (c == '"') {
+				game.addTag(name, new String(this.text, 0, this.textLength, StandardCharsets.UTF_8));
+				return this.skipTo(']');
+			} else {
+				this.append(c);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Read a token of the moves until a space or the start of a comment or a variation
+	 * @return false if the window ended before the end of the token
+	 */
+	private boolean readToken()
+	{
+		this.textLength = 0;
+		byte c;
+		while (this.position < this.limit) {
+			c = this.window.get(this.position);
+			if (isSpace(c) || c == '{' || c == '(' || c == ')' || c == ';' || c == '[' || c == '}') {
+				// A lonely closing character is skipped
+				if (this.textLength == 0) {
+					this.position++;
+				}
+				return true;
+			}
+			this.append(c);
+			this.position++;
+		}
+		return this.isFileEnd();
+	}
+
+	/**
+	 * Skip a variation, with its own variations and comments
+	 * @return false if the window ended before the end of the variation
+	 */
+	private boolean skipVariation()
+	{
+		int depth = 0;
+		byte c;
+		while (this.position < this.limit) {
+			c = this.window.get(this.position);
+			if (c == '{' || c == ';') {
+				if (!this.skipTo(c == '{' ? '}' : '\n')) {
+					return false;
+				}
+				continue;
+			}
+			this.position++;
+			if (c == '(') {
+				depth++;
+			} else if (c == ')' && --depth == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Skip the bytes until a character
+	 * @param end The character, skipped too
+	 * @return false if the window ended before the character
+	 */
+	private boolean skipTo(final char end)
+	{
+		while (this.position < this.limit) {
+			if (this.window.get(this.position++) == end) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Skip the spaces, the ends of line and the byte order mark of the file
+	 */
+	private void skipSpaces()
+	{
+		byte c;
+		while (this.position < this.limit && (isSpace(c = this.window.get(this.position)) || c == (byte) 0xEF
+			   || c == (byte) 0xBB || c == (byte) 0xBF)) {
+			this.position++;
+		}
+	}
+
+	/**
+	 * Check if a byte is a space or a control character (the bytes of the UTF-8 characters are negative)
+	 * @param c The byte
+	 * @return true for a space
+	 */
+	private static boolean isSpace(final byte c)
+	{
+		return c >= 0 && c <= ' ';
+	}
+
+	/**
+	 * Add a byte to the text being read
+	 * @param c The byte
+	 */
+	private void append(final byte c)
+	{
+		if (this.textLength == this.text.length) {
+			this.text = Arrays.copyOf(this.text, this.text.length * 2);
+		}
+		this.text[this.textLength++] = c;
+	}
+
+	/**
+	 * Close the file
+	 * @throws IOException Error send if the file can't be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		this.channel.close();
+	}
+}
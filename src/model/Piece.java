@@ -23,6 +23,8 @@ public abstract class Piece
 	protected Chessboard board;
 	/** The value of the piece */
 	private int value;
+	/** Index of the piece in the list of its type in its player (see Player.java) */
+	private int slot;
 	
 	/**
 	 * Constructor for the Class
@@ -153,34 +155,10 @@ public abstract class Piece
 	 */
 	public boolean canMoveTo(final Position pos)
 	{
-		Piece piece = board.getPiece(pos);
-		Position piecePos = this.getPosition();
-		ColorG colorP = this.getPlayer().getColor();
-		
 		if (pos == null) {
 			return false;
 		}
-		
-		if (!this.isValidMove(pos)) {
-			return false;
-		}
-		
-		if (piece != null && piece.getColor() == this.getColor()) {
-			return false;
-		}
-		
-		if (piecePos.isOnSameColumn(pos) && board.isPieceBetweenInColumn(piecePos, pos)) {
-			return false;
-		}
-		if (piecePos.isOnSameLine(pos) && board.isPieceBetweenInLine(piecePos, pos)) {
-			return false;
-		}
-		if (piecePos.isOnSameDiagonal(pos) && board.isPieceBetweenInDiagonal(piecePos, pos)) {
-			return false;
-		}
-		
-		return this.board.checkSquare(this.getPlayer().getKingPos(), this, pos,
-								   	  colorP == ColorG.WHITE ? this.board.getBlackPlayer(): this.board.getWhitePlayer());
+		return this.board.isLegalMove(this.getPosition().getSquare(), pos.getSquare());
 	}
 	
 	/**
@@ -190,14 +168,8 @@ public abstract class Piece
 	 */
 	public Piece moveTo(final Position pos)
 	{
-		Piece oldPiece = this.board.getPiece(pos);
-		
-		this.board.setLastPawn(null);
-		this.board.setPiece(null, this.getPosition());
-		this.board.setPiece(this, pos);
-		this.setPosition(pos);
-		
-		return oldPiece;
+		int start = this.getPosition().getSquare();
+		return this.board.makeMove(this.board.createMove(start, pos.getSquare(), Bitboard.QUEEN));
 	}
 	
 	/**
@@ -205,10 +177,26 @@ public abstract class Piece
 	 * @param pos The new position
 	 */
 	public void setPosition(final Position pos)
-	{	
-		Position posPiece = this.getPosition();
-		posPiece.setX(pos.getX());
-		posPiece.setY(pos.getY());
+	{
+		this.position = pos;
+	}
+	
+	/**
+	 * Get the index of the piece in the list of its player
+	 * @return The slot
+	 */
+	int getSlot()
+	{
+		return this.slot;
+	}
+	
+	/**
+	 * Change the index of the piece in the list of its player
+	 * @param slot The new slot
+	 */
+	void setSlot(final int slot)
+	{
+		this.slot = slot;
 	}
 	
 	/**
@@ -235,5 +223,11 @@ public abstract class Piece
 	 * @return true if it's valid, else false
 	 */
 	public abstract boolean isValidMove(Position pos);
+	
+	/**
+	 * Get the type of the piece
+	 * @return The type index (see Bitboard.java)
+	 */
+	public abstract int getType();
 
 }
@@ -1,6 +1,6 @@
 package model;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import utils.ColorG;
 
@@ -20,10 +20,14 @@ public class Player
 	private boolean canDoLittleCastling;
 	/** Is the player able to do a big castle */
 	private boolean canDoBigCastling;
-	/** Array for all the pieces of the player */
-	private ArrayList<Piece> pieces;
+	/** Pieces of the player by type (see Bitboard.java), each piece knows its slot in its array */
+	private Piece[][] pieces;
+	/** Number of pieces of each type */
+	private int[] counts;
 	/** Points earned by the player */
 	private int points;
+	/** Time left on the clock of the player in milliseconds (see GameEngine.setClock) */
+	private long timeLeft;
 	
 	/**
 	 * Constructor of the class
@@ -38,8 +42,10 @@ public class Player
 		this.kingPos = kingPos;
 		this.canDoLittleCastling = true;
 		this.canDoBigCastling = true;
-		this.pieces = new ArrayList<Piece>();
+		this.pieces = new Piece[Bitboard.NB_TYPES][10];
+		this.counts = new int[Bitboard.NB_TYPES];
 		this.points = 0;
+		this.timeLeft = 0;
 	}
 
 	/**
@@ -107,32 +113,77 @@ public class Player
 	}
 
 	/**
-	 * A getter for the pieces array of the player
-	 * @return All the remaining pieces of the player
+	 * Get the number of pieces of a type
+	 * <br>The pieces are read with getPiece(type, index) for each index below this number, without any allocation.
+	 * @param type The type of the pieces (see Bitboard.java)
+	 * @return The number of pieces
 	 */
-	@SuppressWarnings("unchecked")
-	public ArrayList<Piece> getPieces()
+	public int getPieceCount(final int type)
 	{
-		return (ArrayList<Piece>) this.pieces.clone();
+		return this.counts[type];
+	}
+	
+	/**
+	 * Get a piece of a type
+	 * @param type The type of the piece (see Bitboard.java)
+	 * @param index The index of the piece, from 0 to getPieceCount(type) - 1
+	 * @return The piece
+	 */
+	public Piece getPiece(final int type, final int index)
+	{
+		if (index < 0 || index >= this.counts[type]) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		return this.pieces[type][index];
 	}
 
 	/**
 	 * Add a piece the user
-	 * @param piece The piece to add
+	 * @param piece The piece to add (nothing is done if the player already has it)
 	 */
 	public void addPiece(final Piece piece)
 	{
-		this.pieces.add(piece);
+		if (this.hasPiece(piece)) {
+			return;
+		}
+		int type = piece.getType();
+		if (this.counts[type] == this.pieces[type].length) {
+			this.pieces[type] = Arrays.copyOf(this.pieces[type], this.counts[type] * 2);
+		}
+		piece.setSlot(this.counts[type]);
+		this.pieces[type][this.counts[type]++] = piece;
 	}
 	
 	/**
 	 * Remove a piece to the user
+	 * <br>The last piece of the same type takes its slot.
 	 * @param piece the piece to remove
 	 * @return true if the piece was removed, else false
 	 */
 	public boolean rmvPiece(final Piece piece)
 	{
-		return this.pieces.remove(piece);
+		if (!this.hasPiece(piece)) {
+			return false;
+		}
+		int type = piece.getType();
+		int slot = piece.getSlot();
+		Piece last = this.pieces[type][--this.counts[type]];
+		
+		this.pieces[type][slot] = last;
+		last.setSlot(slot);
+		this.pieces[type][this.counts[type]] = null;
+		return true;
+	}
+	
+	/**
+	 * Check if a piece is in the pieces of the player
+	 * @param piece The piece to check
+	 * @return true if the player has the piece
+	 */
+	private boolean hasPiece(final Piece piece)
+	{
+		int slot = piece.getSlot();
+		return slot < this.counts[piece.getType()] && this.pieces[piece.getType()][slot] == piece;
 	}
 	
 	/**
@@ -153,6 +204,24 @@ public class Player
 		this.points += nbPoints;
 	}
 	
+	/**
+	 * Get the time left on the clock of the player
+	 * @return The time in milliseconds
+	 */
+	public long getTimeLeft()
+	{
+		return this.timeLeft;
+	}
+	
+	/**
+	 * Change the time left on the clock of the player
+	 * @param timeLeft The time in milliseconds
+	 */
+	public void setTimeLeft(final long timeLeft)
+	{
+		this.timeLeft = timeLeft;
+	}
+	
 	@Override
 	public String toString()
 	{
@@ -4,44 +4,69 @@ import java.util.regex.Pattern;
 
 /**
  * Class Position to manage the position of the pieces
+ * <br>A position can't be changed : there's only one instance for each of the 64 squares,
+ * given by Position.of, so no position is created during the game.
  * @author Hitsuji
  */
-public class Position
+public final class Position
 {
+	/** The positions of the 64 squares (see Bitboard.square) */
+	private static final Position[] SQUARES = new Position[64];
+	
+	static {
+		for (int square = 0; square < 64; square++) {
+			SQUARES[square] = new Position(Bitboard.squareX(square), Bitboard.squareY(square));
+		}
+	}
+	
 	/** X position (represented byt the letter) */
-	private int x;
+	private final int x;
 	/** Y position (represented by the digit) */
-	private int y;
+	private final int y;
 	
 	/**
-	 * Default constructor of the class
+	 * Natural constructor of the class
+	 * @param x Position x of the piece
+	 * @param y Position y of the piece
 	 */
-	public Position()
+	private Position(final int x, final int y)
 	{
-		this(0, 0);
+		this.x = x;
+		this.y = y;
 	}
 	
 	/**
-	 * Natural constructor of the class
-	 * @param x Position x of the piece
-	 * @param y Position y of the piece
+	 * Get the position of a square
+	 * @param x Position x of the square
+	 * @param y Position y of the square
+	 * @return The position
 	 * @throws IllegalArgumentException Error send if the x or y position are out of the chessboard bounds
 	 */
-	public Position(final int x, final int y)
+	public static Position of(final int x, final int y)
 	{
 		if ((0 <= x && x <= 7) && (0 <= y && y <= 7)) {
-			this.x = x;
-			this.y = y;
-			return;
+			return SQUARES[Bitboard.square(x, y)];
 		}
 		throw new IllegalArgumentException(x + "," + y);
 	}
 	
 	/**
-	 * Constructor for the position using an expression like 'B4'
+	 * Get the position of a square
+	 * @param square The index of the square (see Bitboard.square)
+	 * @return The position
+	 */
+	public static Position of(final int square)
+	{
+		return SQUARES[square];
+	}
+	
+	/**
+	 * Get the position from an expression like 'B4'
 	 * @param expression The expression to parse 
+	 * @return The position
+	 * @throws IllegalArgumentException Error send if the expression is not a square
 	 */
-	public Position(String expression)
+	public static Position of(String expression)
 	{
 		if (expression == null || expression.length() != 2) {
 			throw new IllegalArgumentException("The expression must me 'LetterNumber' -> 'B4'");
@@ -60,8 +85,7 @@ public class Position
 		int abs = ((int) letter) - 65;
 		int ord = Character.getNumericValue(number) - 1;
 		
-		this.x = abs;
-		this.y = ord;
+		return of(abs, ord);
 	}
 	
 	/**
@@ -83,39 +107,22 @@ public class Position
 	}
 	
 	/**
-	 * Get the Manhattan distance between 2 positions
-	 * @param pos The position to reach
-	 * @return The Manhattan distance to the position to reach
-	 */
-	public int manhattanDistance(final Position pos)
-	{
-		return Math.abs(pos.x - this.x) + Math.abs(pos.y - this.y);
-	}
-	
-	/**
-	 * Change the abscissa of the position
-	 * @param x The new abscissa
+	 * Get the index of the square of the position (see Bitboard.square)
+	 * @return The index of the square (0 to 63)
 	 */
-	public void setX(final int x)
+	public int getSquare()
 	{
-		if (0 <= x && x <= 7) {
-			this.x = x;
-			return;
-		}
-		throw new IllegalArgumentException("Impossible abscissa given : " + x);
+		return Bitboard.square(this.x, this.y);
 	}
 	
 	/**
-	 * Change the ordinate of the position
-	 * @param y The new ordinate
+	 * Get the Manhattan distance between 2 positions
+	 * @param pos The position to reach
+	 * @return The Manhattan distance to the position to reach
 	 */
-	public void setY(final int y)
+	public int manhattanDistance(final Position pos)
 	{
-		if (0 <= y && y <= 7) {
-			this.y = y;
-			return;
-		}
-		throw new IllegalArgumentException("Impossible ordinate given : " + y);
+		return Math.abs(pos.x - this.x) + Math.abs(pos.y - this.y);
 	}
 	
 	/**
@@ -162,6 +169,12 @@ public class Position
 		return false;
 	}
 	
+	@Override
+	public int hashCode()
+	{
+		return this.getSquare();
+	}
+	
 	@Override
 	public String toString()
 	{
@@ -40,4 +40,10 @@ public class Queen extends Piece
 			   piecePos.isOnSameLine(pos) ||
 			   piecePos.isOnSameDiagonal(pos);
 	}
+	
+	@Override
+	public int getType()
+	{
+		return Bitboard.QUEEN;
+	}
 }
@@ -10,9 +10,6 @@ import utils.Symbol;
  */
 public class Rook extends Piece
 {
-	/** Boolean to know if the rook already moved */
-	private boolean hasMoved;
-	
 	/**
 	 * Constructor of the class
 	 * @param board The chessboard that contains the piece
@@ -29,8 +26,6 @@ public class Rook extends Piece
 			  (color == ColorG.WHITE ? Symbol.WHITE_ROOK : Symbol.BLACK_ROOK),
 			  player,
 			  value);
-		
-		this.hasMoved = false;
 	}
 	
 	@Override
@@ -46,21 +41,8 @@ public class Rook extends Piece
 	}
 	
 	@Override
-	public Piece moveTo(final Position pos)
+	public int getType()
 	{
-		Piece oldPiece = super.moveTo(pos);
-		King king = (King) this.board.getPiece(this.getPlayer().getKingPos());
-		Position piecePos = this.getPosition();
-		
-		if (!this.hasMoved) {
-			if (piecePos.getX() == 0) {
-				king.disableBigCastling();
-			}
-			else if (piecePos.getX() == 7) {
-				king.disableLittleCastling();
-			}
-			this.hasMoved = true;
-		}
-		return oldPiece;
+		return Bitboard.ROOK;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,1008 @@
+package model;
+
+import utils.ColorG;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Search of the best move of a position
+ * <br>It's a negamax alpha-beta search with iterative deepening : the position is searched at depth 1, 2, 3, ...
+ * until a limit (depth, nodes or time) is reached. At the end of each branch, the captures are searched
+ * until the position is quiet. Each iteration uses the best moves of the previous ones (principal variation and transposition table) to search the best moves first.
+ * The other moves are ordered by MVV-LVA for the captures (the ones losing material last), then by killer moves, counter moves and history
+ * for the quiet moves, these tables are kept from a search to the next one.
+ * <br>The search is selective : null move, late move reductions, futility and reverse futility prune the
+ * moves unlikely to change the result, and each depth starts with a small window around the previous score
+ * (aspiration). Each pruning can be disabled to measure what it brings (see setPruning).
+ * <br>The scores are in centipawns, from the point of view of the side to move.
+ * <br>With several threads (Lazy SMP), helper searches run on copies of the board and share the
+ * transposition table : they fill it with positions the main search finds later. Half of them search
+ * one ply deeper to search other positions. The result of the deepest search is used.
+ * @author Hitsuji
+ */
+public class Search
+{
+	/** Score bigger than every real score */
+	public static final int INFINITE = 32000;
+	/** Score of a mate at the root, a mate in n plies is worth MATE - n */
+	public static final int MATE = 31000;
+	/** Maximum number of plies searched */
+	public static final int MAX_PLY = 128;
+	/** Number of entries of the table of the pawn structures of each thread */
+	public static final int PAWN_TABLE_SIZE = 1 << 14;
+
+	/** Pruning : null move (see setPruning) */
+	public static final int NULL_MOVE = 1;
+	/** Pruning : late move reductions */
+	public static final int LATE_MOVE_REDUCTIONS = 2;
+	/** Pruning : futility pruning of the quiet moves near the leaves */
+	public static final int FUTILITY = 4;
+	/** Pruning : reverse futility (static null move) */
+	public static final int REVERSE_FUTILITY = 8;
+	/** Pruning : aspiration windows at the root */
+	public static final int ASPIRATION = 16;
+	/** All the prunings */
+	public static final int ALL_PRUNINGS = NULL_MOVE | LATE_MOVE_REDUCTIONS | FUTILITY | REVERSE_FUTILITY | ASPIRATION;
+
+	/** Number of nodes between two checks of the limits */
+	private static final int CHECK_NODES = 1024;
+	/** Margin of the futility pruning at each remaining depth */
+	private static final int[] FUTILITY_MARGINS = {0, 150, 250, 350};
+	/** Time kept on the clock for the delays out of the search, in milliseconds */
+	private static final long MOVE_OVERHEAD = 50;
+	/** Percentage of the soft time used depending on the number of depths the best move stayed the same */
+	private static final int[] STABILITY_SCALES = {150, 120, 100, 85, 70};
+	/** Half width of the first aspiration window */
+	private static final int ASPIRATION_WINDOW = 25;
+	/** Reduction of the late moves for each remaining depth and index of the move */
+	private static final int[][] REDUCTIONS = new int[MAX_PLY][Move.MAX_MOVES];
+
+	static {
+		for (int depth = 1; depth < MAX_PLY; depth++) {
+			for (int i = 1; i < Move.MAX_MOVES; i++) {
+				REDUCTIONS[depth][i] = (int) (0.75 + Math.log(depth) * Math.log(i) / 2.25);
+			}
+		}
+	}
+
+	/** Order value of the move of the transposition table */
+	private static final int TT_ORDER = 1 << 30;
+	/** Order value of the captures and queen promotions not losing material (plus their MVV-LVA value), minus it for the others */
+	private static final int CAPTURE_ORDER = 1 << 28;
+	/** Order value of the counter move, the killer moves are just above it */
+	private static final int KILLER_ORDER = 1 << 26;
+	/** Biggest absolute value of the history of a move */
+	private static final int MAX_HISTORY = 1 << 14;
+
+	/** The table shared with the other searches */
+	private TranspositionTable table;
+	/** The board of the search */
+	private Chessboard board;
+	/** Evaluations of the pawn structures, kept from a search to the next one */
+	private PawnTable pawns;
+	/** Moves generated at each ply */
+	private int[][] moves;
+	/** Values of the moves of each ply for the move ordering */
+	private int[][] moveValues;
+	/** Principal variation found at each ply (triangular table) */
+	private int[][] pv;
+	/** Length of the principal variation at each ply */
+	private int[] pvLength;
+	/** Move played at each ply (to find the counter move of the next ply) */
+	private int[] playedMoves;
+	/** Two quiet moves of each ply that caused a cutoff (killer moves), the last one first */
+	private int[][] killers;
+	/** Success of each quiet move (start * 64 + end) of each color, in [-MAX_HISTORY, MAX_HISTORY] */
+	private int[][] history;
+	/** Quiet move that refuted each move, by piece (see Bitboard.index) * 64 + end square of the move refuted */
+	private int[] counterMoves;
+
+	/** Maximum depth (0 for no limit) */
+	private int maxDepth;
+	/** Maximum number of nodes (0 for no limit) */
+	private long maxNodes;
+	/** Time in milliseconds after which no new depth is started, when the best move is stable (0 for no limit) */
+	private long softTime;
+	/** Time in milliseconds after which the search stops at once (0 for no limit) */
+	private long hardTime;
+	/** true to search without limit until stop is called (pondering) */
+	private boolean infinite;
+	/** Time of the start of the search (System.nanoTime) */
+	private long startTime;
+	/** true if the search has to stop as soon as possible */
+	private volatile boolean stopped;
+
+	/** Number of positions searched */
+	private long nodes;
+	/** Best move of the last depth completed */
+	private int bestMove;
+	/** Score of the last depth completed */
+	private int bestScore;
+	/** Last depth completed */
+	private int completedDepth;
+	/** Principal variation of the last depth completed */
+	private int[] bestPv;
+	/** Length of bestPv */
+	private int bestPvLength;
+
+	/** Prunings used (see NULL_MOVE, ...) */
+	private int pruning;
+	/** Endgame tables giving the exact result of the positions with few pieces (null for none) */
+	private Tablebase tablebase;
+	/** Squares of the pieces given to the endgame tables, reused at each probe */
+	private long[] tablebaseMasks;
+	/** Plies added to the depth of each iteration (1 for half of the helpers) */
+	private int depthOffset;
+	/** Searches helping this one (empty with one thread) */
+	private Search[] helpers;
+	/** Threads running the helpers (null with one thread) */
+	private ExecutorService pool;
+
+	/**
+	 * Constructor of the class
+	 * @param table The transposition table to use
+	 */
+	public Search(final TranspositionTable table)
+	{
+		this.table = table;
+		this.pawns = new PawnTable(PAWN_TABLE_SIZE);
+		this.moves = new int[MAX_PLY][Move.MAX_MOVES];
+		this.moveValues = new int[MAX_PLY][Move.MAX_MOVES];
+		this.pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+		this.pvLength = new int[MAX_PLY + 1];
+		this.playedMoves = new int[MAX_PLY];
+		this.killers = new int[MAX_PLY][2];
+		this.history = new int[2][64 * 64];
+		this.counterMoves = new int[12 * 64];
+		this.bestPv = new int[MAX_PLY];
+		this.maxDepth = 0;
+		this.maxNodes = 0;
+		this.softTime = 0;
+		this.hardTime = 0;
+		this.infinite = false;
+		this.pruning = ALL_PRUNINGS;
+		this.tablebase = null;
+		this.tablebaseMasks = new long[12];
+		this.depthOffset = 0;
+		this.helpers = new Search[0];
+		this.pool = null;
+	}
+
+	/**
+	 * Change the number of threads of the search
+	 * @param threads The number of threads (the thread calling search included)
+	 * @throws IllegalArgumentException Error send if the number is not positive
+	 */
+	public void setThreads(final int threads)
+	{
+		if (threads <= 0) {
+			throw new IllegalArgumentException("The number of threads must be positive : " + threads);
+		}
+		if (this.pool != null) {
+			this.pool.shutdownNow();
+			this.pool = null;
+		}
+
+		this.helpers = new Search[threads - 1];
+		for (int i = 0; i < this.helpers.length; i++) {
+			this.helpers[i] = new Search(this.table);
+			this.helpers[i].depthOffset = (i % 2 == 0 ? 1 : 0);
+		}
+		if (this.helpers.length > 0) {
+			this.pool = Executors.newFixedThreadPool(this.helpers.length, task -> {
+				Thread thread = new Thread(task, "search-helper");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * Get the number of threads of the search
+	 * @return The number of threads
+	 */
+	public int getThreads()
+	{
+		return this.helpers.length + 1;
+	}
+
+	/**
+	 * Change the maximum depth
+	 * @param depth The depth in plies (0 for no limit)
+	 */
+	public void setDepth(final int depth)
+	{
+		this.maxDepth = depth;
+	}
+
+	/**
+	 * Change the maximum number of nodes
+	 * @param nodes The number of positions searched (0 for no limit)
+	 */
+	public void setNodes(final long nodes)
+	{
+		this.maxNodes = nodes;
+	}
+
+	/**
+	 * Change the maximum time
+	 * @param time The time in milliseconds (0 for no limit), no new depth is started after its half
+	 */
+	public void setTime(final long time)
+	{
+		this.softTime = time / 2;
+		this.hardTime = time;
+	}
+
+	/**
+	 * Compute the time of the search from a chess clock
+	 * <br>The search plans to use a part of the remaining time (soft limit), more when the best move changes from
+	 * a depth to the next one and less when it's stable, and never more than a quarter of it (hard limit).
+	 * @param timeLeft The time left on the clock of the side to move in milliseconds
+	 * @param increment The time added to the clock after each move in milliseconds
+	 */
+	public void setClock(final long timeLeft, final long increment)
+	{
+		long left = Math.max(1, timeLeft - MOVE_OVERHEAD);
+		this.hardTime = Math.max(1, left / 4);
+		this.softTime = Math.max(1, Math.min(left / 30 + increment * 3 / 4, this.hardTime));
+	}
+
+	/**
+	 * Change the prunings used, to measure what each one brings
+	 * @param pruning The prunings (NULL_MOVE, LATE_MOVE_REDUCTIONS, ... combined with |, 0 for none)
+	 */
+	public void setPruning(final int pruning)
+	{
+		this.pruning = pruning & ALL_PRUNINGS;
+	}
+
+	/**
+	 * Get the prunings used
+	 * @return The prunings (see setPruning)
+	 */
+	public int getPruning()
+	{
+		return this.pruning;
+	}
+
+	/**
+	 * Use endgame tables, the positions in the tables are not searched
+	 * @param tablebase The tables (null for none)
+	 */
+	public void setTablebase(final Tablebase tablebase)
+	{
+		this.tablebase = tablebase;
+	}
+
+	/**
+	 * Get the transposition table of the search
+	 * @return The table
+	 */
+	public TranspositionTable getTable()
+	{
+		return this.table;
+	}
+
+	/**
+	 * Stop the search, it returns the best move of the last depth completed
+	 */
+	public void stop()
+	{
+		this.stopped = true;
+	}
+
+	/**
+	 * Search the best move of a position
+	 * <br>The board is modified during the search and given back as it was at the end.
+	 * @param board The position to search
+	 * @return The best move found (Move.NONE if there's no legal move)
+	 */
+	public int search(final Chessboard board)
+	{
+		this.stopped = false;
+		this.infinite = false;
+		return this.run(board);
+	}
+
+	/**
+	 * Search a position in a new thread without limit until stop is called (pondering)
+	 * <br>The board must not be used by another thread during the search. The results fill the transposition
+	 * table for the next searches.
+	 * @param board The position to search
+	 * @return The thread of the search, it ends after stop is called
+	 */
+	public Thread ponder(final Chessboard board)
+	{
+		this.stopped = false;
+		this.infinite = true;
+		Thread res = new Thread(() -> this.run(board), "search-ponder");
+		res.setDaemon(true);
+		res.start();
+		return res;
+	}
+
+	/**
+	 * Search the best move of a position with the helpers
+	 * @param board The position to search, given back as it was at the end
+	 * @return The best move found (Move.NONE if there's no legal move)
+	 */
+	private int run(final Chessboard board)
+	{
+		this.startTime = System.nanoTime();
+		this.table.newSearch();
+
+		// The helpers search until the main search is over, their copies keep the positions of the game so every
+		// thread scores the repetitions the same way in the shared table
+		Future<?>[] tasks = new Future<?>[this.helpers.length];
+		for (int i = 0; i < this.helpers.length; i++) {
+			Search helper = this.helpers[i];
+			Chessboard copy = board.copy();
+			helper.maxDepth = this.maxDepth;
+			helper.pruning = this.pruning;
+			helper.tablebase = this.tablebase;
+			helper.infinite = this.infinite;
+			helper.stopped = false;
+			tasks[i] = this.pool.submit(() -> helper.iterate(copy));
+		}
+		this.iterate(board);
+
+		for (Search helper : this.helpers) {
+			helper.stop();
+		}
+		Search best = this;
+		for (int i = 0; i < this.helpers.length; i++) {
+			try {
+				tasks[i].get();
+			} catch (final InterruptedException | ExecutionException error) {
+				throw new IllegalStateException("A helper of the search failed", error);
+			}
+			if (this.helpers[i].completedDepth > best.completedDepth && this.helpers[i].bestMove != Move.NONE) {
+				best = this.helpers[i];
+			}
+		}
+		if (best != this) {
+			this.bestMove = best.bestMove;
+			this.bestScore = best.bestScore;
+			this.completedDepth = best.completedDepth;
+			this.bestPvLength = best.bestPvLength;
+			System.arraycopy(best.bestPv, 0, this.bestPv, 0, best.bestPvLength);
+		}
+
+		if (this.bestMove == Move.NONE) {
+			int nb = MoveGenerator.generate(board, board.getSideToMove(), this.moves[0]);
+			this.bestMove = (nb > 0 ? this.moves[0][0] : Move.NONE);
+		}
+		return this.bestMove;
+	}
+
+	/**
+	 * Search the position at each depth until a limit is reached (iterative deepening)
+	 * @param board The position to search
+	 */
+	private void iterate(final Chessboard board)
+	{
+		this.board = board;
+		this.startTime = System.nanoTime();
+		this.nodes = 0;
+		this.bestMove = Move.NONE;
+		this.bestScore = 0;
+		this.bestPvLength = 0;
+		this.completedDepth = 0;
+		this.clearOrdering();
+
+		int last = (this.maxDepth > 0 && !this.infinite ? Math.min(this.maxDepth, MAX_PLY - 1) : MAX_PLY - 1);
+		int stability = 0;
+		int score;
+		for (int depth = 1 + this.depthOffset; depth <= last; depth++) {
+			score = this.aspiration(depth);
+
+			// An unfinished depth is not used
+			if (this.stopped) {
+				break;
+			}
+			this.bestScore = score;
+			this.bestPvLength = this.pvLength[0];
+			System.arraycopy(this.pv[0], 0, this.bestPv, 0, this.bestPvLength);
+			stability = (this.bestPvLength > 0 && this.bestPv[0] == this.bestMove ? stability + 1 : 0);
+			this.bestMove = (this.bestPvLength > 0 ? this.bestPv[0] : Move.NONE);
+			this.completedDepth = depth;
+
+			// No need to go deeper if a mate was found or if the next depth can't be finished in time
+			if (MATE - Math.abs(score) <= depth) {
+				break;
+			}
+			if (!this.infinite && this.softTime > 0
+				&& this.getTime() >= this.softTime * STABILITY_SCALES[Math.min(stability, STABILITY_SCALES.length - 1)] / 100) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Search the root at a depth, first in a small window around the score of the previous depth
+	 * (aspiration window), which is widened each time the score falls outside
+	 * @param depth The depth
+	 * @return The score of the root
+	 */
+	private int aspiration(final int depth)
+	{
+		if ((this.pruning & ASPIRATION) == 0 || this.completedDepth < 4 || Math.abs(this.bestScore) >= MATE - MAX_PLY) {
+			return this.negamax(-INFINITE, INFINITE, depth, 0);
+		}
+
+		int delta = ASPIRATION_WINDOW;
+		int alpha = this.bestScore - delta;
+		int beta = this.bestScore + delta;
+		int score;
+		while (true) {
+			score = this.negamax(alpha, beta, depth, 0);
+			if (this.stopped) {
+				return score;
+			}
+			delta *= 2;
+			if (score <= alpha) {
+				alpha = Math.max(score - delta, -INFINITE);
+			} else if (score >= beta) {
+				beta = Math.min(score + delta, INFINITE);
+			} else {
+				return score;
+			}
+		}
+	}
+
+	/**
+	 * Search a position
+	 * @param alpha The score the side to move is already sure to get
+	 * @param beta The score the opponent is already sure to get (the side to move can't get more)
+	 * @param depth The remaining depth
+	 * @param ply The distance to the root
+	 * @return The score of the position
+	 */
+	private int negamax(int alpha, final int beta, final int depth, final int ply)
+	{
+		this.pvLength[ply] = ply;
+		if (++this.nodes % CHECK_NODES == 0) {
+			this.checkLimits();
+		}
+		if (this.stopped) {
+			return 0;
+		}
+		if (ply > 0 && this.board.isRepetition()) {
+			return 0;
+		}
+		// The endgame tables know the exact result (the root still needs a move)
+		if (ply > 0 && this.tablebase != null) {
+			int result = this.tablebase.probe(this.board, this.tablebaseMasks);
+			if (result != Tablebase.NO_ENTRY) {
+				return tablebaseScore(result, ply);
+			}
+		}
+		if (depth <= 0 || ply >= MAX_PLY - 1) {
+			return this.quiescence(alpha, beta, ply);
+		}
+
+		// The result of the position may be already known
+		long key = this.board.getKey();
+		long entry = this.table.probe(key);
+		int ttMove = Move.NONE;
+		if (entry != 0) {
+			ttMove = TranspositionTable.getMove(entry);
+			if (ply > 0 && TranspositionTable.getDepth(entry) >= depth) {
+				int score = fromTable(TranspositionTable.getScore(entry), ply);
+				int bound = TranspositionTable.getBound(entry);
+				if (bound == TranspositionTable.EXACT
+					|| (bound == TranspositionTable.LOWER && score >= beta)
+					|| (bound == TranspositionTable.UPPER && score <= alpha)) {
+					return score;
+				}
+			}
+		}
+
+		ColorG color = this.board.getSideToMove();
+		ColorG enemy = (color == ColorG.WHITE ? ColorG.BLACK : ColorG.WHITE);
+		boolean check = this.board.isInCheck(color);
+		// Only the principal variation is searched with an open window, the other nodes just have to refute it
+		boolean pvNode = (beta - alpha > 1);
+		boolean pruning = (!pvNode && !check && Math.abs(beta) < MATE - MAX_PLY);
+		int eval = (check ? -INFINITE : this.evaluate());
+		int score;
+
+		// Reverse futility : the position is so good that a shallow search would still fail high
+		if (pruning && (this.pruning & REVERSE_FUTILITY) != 0 && depth <= 6 && eval - 90 * depth >= beta) {
+			return eval;
+		}
+
+		// Null move : if passing is still enough to fail high, a real move would be too (not true in zugzwang,
+		// so not without pieces, and not twice in a row)
+		if (pruning && (this.pruning & NULL_MOVE) != 0 && depth >= 3 && eval >= beta
+			&& ply > 0 && this.playedMoves[ply - 1] != Move.NONE
+			&& (this.board.getColorMask(color) & ~this.board.getPieceMask(color, Bitboard.PAWN)
+				& ~this.board.getPieceMask(color, Bitboard.KING)) != 0) {
+			this.playedMoves[ply] = Move.NONE;
+			this.board.makeNullMove();
+			score = -this.negamax(-beta, -beta + 1, depth - 1 - (3 + depth / 6), ply + 1);
+			this.board.unmakeMove();
+			if (this.stopped) {
+				return 0;
+			}
+			if (score >= beta) {
+				return (score >= MATE - MAX_PLY ? beta : score);
+			}
+		}
+
+		int[] list = this.moves[ply];
+		int nb = MoveGenerator.generate(this.board, color, list);
+		if (nb == 0) {
+			return (check ? -MATE + ply : 0);
+		}
+		int[] values = this.moveValues[ply];
+		int counter = this.scoreMoves(list, values, nb, ttMove, ply);
+
+		// Futility : near the leaves, the quiet moves can't bring the score back to alpha
+		boolean futile = (pruning && (this.pruning & FUTILITY) != 0 && depth <= 3 && eval + FUTILITY_MARGINS[depth] <= alpha);
+
+		int oldAlpha = alpha;
+		int best = -INFINITE;
+		int bestMove = Move.NONE;
+		int move, reduction;
+		boolean quiet, givesCheck;
+		for (int i = 0; i < nb; i++) {
+			move = this.pickMove(list, values, i, nb);
+			quiet = isQuiet(move);
+			this.playedMoves[ply] = move;
+			this.board.makeMove(move);
+			givesCheck = this.board.isInCheck(enemy);
+
+			if (futile && quiet && !givesCheck && best > -MATE + MAX_PLY) {
+				this.board.unmakeMove();
+				continue;
+			}
+
+			// Late move reductions : the last quiet moves are searched less deep, and again if they beat alpha
+			reduction = 0;
+			if ((this.pruning & LATE_MOVE_REDUCTIONS) != 0 && depth >= 3 && i >= 3 && quiet && !check && !givesCheck) {
+				reduction = REDUCTIONS[Math.min(depth, MAX_PLY - 1)][Math.min(i, Move.MAX_MOVES - 1)];
+				if (pvNode || values[i] >= KILLER_ORDER) {
+					reduction--;
+				}
+				reduction = Math.max(0, Math.min(reduction, depth - 2));
+			}
+			if (reduction > 0) {
+				score = -this.negamax(-alpha - 1, -alpha, depth - 1 - reduction, ply + 1);
+				if (score > alpha && !this.stopped) {
+					score = -this.negamax(-beta, -alpha, depth - 1, ply + 1);
+				}
+			} else {
+				score = -this.negamax(-beta, -alpha, depth - 1, ply + 1);
+			}
+			this.board.unmakeMove();
+			if (this.stopped) {
+				return 0;
+			}
+
+			if (score > best) {
+				best = score;
+				bestMove = move;
+				if (score > alpha) {
+					alpha = score;
+					this.updatePv(ply, move);
+					if (alpha >= beta) {
+						if (quiet) {
+							this.updateQuiet(list, i, color, depth, ply, counter);
+						}
+						break;
+					}
+				}
+			}
+		}
+
+		int bound = (best >= beta ? TranspositionTable.LOWER
+					 : (best > oldAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER));
+		this.table.store(key, bestMove, toTable(best, ply), depth, bound);
+		return best;
+	}
+
+	/**
+	 * Search only the captures and the promotions of a position until it's quiet (quiescence search)
+	 * <br>The side to move can also stop capturing and keep the static score, except in check where all the moves
+	 * are searched. It avoids to stop the search in the middle of an exchange (horizon effect).
+	 * @param alpha The score the side to move is already sure to get
+	 * @param beta The score the opponent is already sure to get
+	 * @param ply The distance to the root
+	 * @return The score of the position
+	 */
+	private int quiescence(int alpha, final int beta, final int ply)
+	{
+		this.pvLength[ply] = ply;
+		if (++this.nodes % CHECK_NODES == 0) {
+			this.checkLimits();
+		}
+		if (this.stopped) {
+			return 0;
+		}
+		if (ply >= MAX_PLY - 1) {
+			return this.evaluate();
+		}
+
+		ColorG color = this.board.getSideToMove();
+		boolean check = this.board.isInCheck(color);
+		int[] list = this.moves[ply];
+		int nb, best;
+		if (check) {
+			nb = MoveGenerator.generate(this.board, color, list);
+			if (nb == 0) {
+				return -MATE + ply;
+			}
+			best = -INFINITE;
+		} else {
+			best = this.evaluate();
+			if (best >= beta) {
+				return best;
+			}
+			alpha = Math.max(alpha, best);
+			nb = MoveGenerator.generateCaptures(this.board, color, list);
+		}
+
+		int[] values = this.moveValues[ply];
+		this.scoreMoves(list, values, nb, Move.NONE, ply);
+		int score, move;
+		for (int i = 0; i < nb; i++) {
+			move = this.pickMove(list, values, i, nb);
+			// The under promotions without capture and the captures losing material are not worth searching
+			if (!check && (isQuiet(move) || values[i] < 0)) {
+				continue;
+			}
+			this.playedMoves[ply] = move;
+			this.board.makeMove(move);
+			score = -this.quiescence(-beta, -alpha, ply + 1);
+			this.board.unmakeMove();
+			if (this.stopped) {
+				return 0;
+			}
+
+			if (score > best) {
+				best = score;
+				if (score > alpha) {
+					alpha = score;
+					this.updatePv(ply, move);
+					if (alpha >= beta) {
+						break;
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Evaluate the position for the side to move
+	 * @return The score in centipawns (see Evaluation.java)
+	 */
+	private int evaluate()
+	{
+		return Evaluation.evaluate(this.board, this.pawns);
+	}
+
+	/**
+	 * Give a value to each move for the move ordering : the move of the table first, then the captures
+	 * (most valuable victim first, then least valuable attacker first), then the killer moves and the counter move,
+	 * then the other moves by history
+	 * @param list The moves
+	 * @param values The array to store the values of the moves
+	 * @param nb The number of moves
+	 * @param ttMove The move of the transposition table (Move.NONE if there's none)
+	 * @param ply The distance to the root
+	 * @return The index of the counter move of the ply in counterMoves (-1 if there's no previous move or a null move)
+	 */
+	private int scoreMoves(final int[] list, final int[] values, final int nb, final int ttMove, final int ply)
+	{
+		int counter = -1;
+		if (ply > 0 && this.playedMoves[ply - 1] != Move.NONE) {
+			int end = Move.getEnd(this.playedMoves[ply - 1]);
+			Piece piece = this.board.getPiece(end);
+			counter = Bitboard.index(piece.getColor(), piece.getType()) * 64 + end;
+		}
+		int counterMove = (counter < 0 ? Move.NONE : this.counterMoves[counter]);
+		int[] killer = this.killers[ply];
+		int[] history = this.history[this.board.getSideToMove().ordinal()];
+		int move;
+
+		for (int i = 0; i < nb; i++) {
+			move = list[i];
+			if (move == ttMove) {
+				values[i] = TT_ORDER;
+			} else if (!isQuiet(move)) {
+				// The captures losing material (see Chessboard.see) are searched after the quiet moves
+				values[i] = (this.board.seeGreaterOrEqual(move, 0) ? CAPTURE_ORDER : -CAPTURE_ORDER) + this.mvvLva(move);
+			} else if (move == killer[0]) {
+				values[i] = KILLER_ORDER + 2;
+			} else if (move == killer[1]) {
+				values[i] = KILLER_ORDER + 1;
+			} else if (move == counterMove) {
+				values[i] = KILLER_ORDER;
+			} else {
+				values[i] = history[move & 0xFFF];
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * Give the MVV-LVA value of a capture or a queen promotion
+	 * @param move The move
+	 * @return The value of the victim (see Piece.getValue) times 16 minus the value of the attacker
+	 */
+	private int mvvLva(final int move)
+	{
+		int victim;
+		if (Move.getFlags(move) == Move.EN_PASSANT) {
+			victim = 1;
+		} else if (Move.isCapture(move)) {
+			victim = this.board.getPiece(Move.getEnd(move)).getValue();
+		} else {
+			victim = 0;
+		}
+		if (Move.isPromotion(move)) {
+			victim += 9;
+		}
+		return victim * 16 - this.board.getPiece(Move.getStart(move)).getValue();
+	}
+
+	/**
+	 * Find the best move not searched yet and put it at its place in the list
+	 * @param list The moves
+	 * @param values The values of the moves
+	 * @param index The index of the move to search (the moves before are already searched)
+	 * @param nb The number of moves
+	 * @return The move to search
+	 */
+	private int pickMove(final int[] list, final int[] values, final int index, final int nb)
+	{
+		int best = index;
+		for (int i = index + 1; i < nb; i++) {
+			if (values[i] > values[best]) {
+				best = i;
+			}
+		}
+		int move = list[best];
+		int value = values[best];
+		list[best] = list[index];
+		values[best] = values[index];
+		list[index] = move;
+		values[index] = value;
+		return move;
+	}
+
+	/**
+	 * Remember a quiet move that caused a cutoff : it becomes a killer move of the ply and the counter move
+	 * of the previous move, its history grows and the history of the quiet moves searched before it decreases
+	 * @param list The moves, the ones searched first at the beginning
+	 * @param index The index of the move in the list
+	 * @param color The color of the side to move
+	 * @param depth The remaining depth
+	 * @param ply The distance to the root
+	 * @param counter The index of the counter move of the ply (-1 if there's none)
+	 */
+	private void updateQuiet(final int[] list, final int index, final ColorG color, final int depth, final int ply, final int counter)
+	{
+		int move = list[index];
+		int[] killer = this.killers[ply];
+		if (killer[0] != move) {
+			killer[1] = killer[0];
+			killer[0] = move;
+		}
+		if (counter >= 0) {
+			this.counterMoves[counter] = move;
+		}
+
+		int[] history = this.history[color.ordinal()];
+		int bonus = Math.min(depth * depth, MAX_HISTORY / 4);
+		addHistory(history, move, bonus);
+		for (int i = 0; i < index; i++) {
+			if (isQuiet(list[i])) {
+				addHistory(history, list[i], -bonus);
+			}
+		}
+	}
+
+	/**
+	 * Change the history of a move, the change is smaller when the history is near its limit
+	 * @param history The history of a color
+	 * @param move The move
+	 * @param bonus The change (negative for a malus)
+	 */
+	private static void addHistory(final int[] history, final int move, final int bonus)
+	{
+		int index = move & 0xFFF;
+		history[index] += bonus - history[index] * Math.abs(bonus) / MAX_HISTORY;
+	}
+
+	/**
+	 * Forget the killer moves and the counter moves, and halve the history to prefer the recent results
+	 */
+	private void clearOrdering()
+	{
+		for (int[] killer : this.killers) {
+			killer[0] = Move.NONE;
+			killer[1] = Move.NONE;
+		}
+		for (int[] history : this.history) {
+			for (int i = 0; i < history.length; i++) {
+				history[i] /= 2;
+			}
+		}
+		Arrays.fill(this.counterMoves, Move.NONE);
+	}
+
+	/**
+	 * Check if a move is quiet (no capture and no queen promotion)
+	 * @param move The move
+	 * @return true if the move is ordered by the killer moves and the history
+	 */
+	private static boolean isQuiet(final int move)
+	{
+		return !Move.isCapture(move) && (!Move.isPromotion(move) || Move.getPromotionType(move) != Bitboard.QUEEN);
+	}
+
+	/**
+	 * Put a move at the head of the principal variation of a ply
+	 * @param ply The ply
+	 * @param move The best move of the ply
+	 */
+	private void updatePv(final int ply, final int move)
+	{
+		this.pv[ply][ply] = move;
+		System.arraycopy(this.pv[ply + 1], ply + 1, this.pv[ply], ply + 1, this.pvLength[ply + 1] - ply - 1);
+		this.pvLength[ply] = Math.max(this.pvLength[ply + 1], ply + 1);
+	}
+
+	/**
+	 * Stop the search if the number of nodes or the time is over
+	 */
+	private void checkLimits()
+	{
+		if (this.completedDepth == 0 || this.infinite) {
+			return;
+		}
+		if ((this.maxNodes > 0 && this.nodes >= this.maxNodes) || (this.hardTime > 0 && this.getTime() >= this.hardTime)) {
+			this.stopped = true;
+		}
+	}
+
+	/**
+	 * Convert a score of mate from the root to the position, to store it in the table
+	 * @param score The score
+	 * @param ply The distance to the root
+	 * @return The score to store
+	 */
+	private static int toTable(final int score, final int ply)
+	{
+		if (score >= MATE - MAX_PLY) {
+			return score + ply;
+		}
+		if (score <= -MATE + MAX_PLY) {
+			return score - ply;
+		}
+		return score;
+	}
+
+	/**
+	 * Convert a result of the endgame tables to a score
+	 * @param result The result for the side to move (see Tablebase.java)
+	 * @param ply The distance to the root
+	 * @return The score, a mate too far for the search is brought back to the longest one it knows
+	 */
+	private static int tablebaseScore(final int result, final int ply)
+	{
+		if (result > 0) {
+			return MATE - Math.min(ply + result, MAX_PLY - 1);
+		}
+		if (result < 0) {
+			return -MATE + Math.min(ply - result - 1, MAX_PLY - 1);
+		}
+		return 0;
+	}
+
+	/**
+	 * Convert a score of mate from the table to the root
+	 * @param score The score stored
+	 * @param ply The distance to the root
+	 * @return The score from the root
+	 */
+	private static int fromTable(final int score, final int ply)
+	{
+		if (score >= MATE - MAX_PLY) {
+			return score - ply;
+		}
+		if (score <= -MATE + MAX_PLY) {
+			return score + ply;
+		}
+		return score;
+	}
+
+	/**
+	 * Get the time spent since the start of the search
+	 * @return The time in milliseconds
+	 */
+	public long getTime()
+	{
+		return (System.nanoTime() - this.startTime) / 1000000;
+	}
+
+	/**
+	 * Get the number of positions searched by all the threads
+	 * @return The number of nodes
+	 */
+	public long getNodes()
+	{
+		long res = this.nodes;
+		for (Search helper : this.helpers) {
+			res += helper.nodes;
+		}
+		return res;
+	}
+
+	/**
+	 * Get the best move of the last depth completed
+	 * @return The packed move
+	 */
+	public int getBestMove()
+	{
+		return this.bestMove;
+	}
+
+	/**
+	 * Get the score of the last depth completed
+	 * @return The score in centipawns for the side to move
+	 */
+	public int getScore()
+	{
+		return this.bestScore;
+	}
+
+	/**
+	 * Get the last depth completed
+	 * @return The depth in plies
+	 */
+	public int getDepth()
+	{
+		return this.completedDepth;
+	}
+
+	/**
+	 * Get the principal variation of the last depth completed
+	 * @return The moves expected for both sides, starting with the best move
+	 */
+	public int[] getPrincipalVariation()
+	{
+		int[] res = new int[this.bestPvLength];
+		System.arraycopy(this.bestPv, 0, res, 0, this.bestPvLength);
+		return res;
+	}
+
+	/**
+	 * Give a summary of the last search
+	 * @return A string like 'depth 6, score 35, 123456 nodes, 1.2 s, pv e2e4 e7e5 ...'
+	 */
+	public String getInfo()
+	{
+		StringBuilder res = new StringBuilder();
+		res.append("depth ").append(this.completedDepth).append(", score ");
+		if (Math.abs(this.bestScore) >= MATE - MAX_PLY) {
+			int moves = (MATE - Math.abs(this.bestScore) + 1) / 2;
+			res.append(this.bestScore > 0 ? "mate in " : "mated in ").append(moves);
+		} else {
+			res.append(this.bestScore);
+		}
+		res.append(", ").append(this.getNodes()).append(" nodes, ").append(this.getTime()).append(" ms, pv");
+		for (int i = 0; i < this.bestPvLength; i++) {
+			res.append(' ').append(Move.toString(this.bestPv[i]));
+		}
+		return res.toString();
+	}
+}
@@ -0,0 +1,323 @@
+package model;
+
+import utils.ColorG;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Endgame tablebases : the exact result of every position of a few pieces (see TablebaseGenerator.java)
+ * <br>Each set of pieces (like 'KQK') has its own file, with one value of 2 bytes for each side to move and each
+ * square of each piece : 0 for a draw, n > 0 for a win with a mate in n plies, -n - 1 for a loss with a mate in n plies.
+ * Only the sets where white is the strongest are stored, the others are read with the colors swapped.
+ * The files are mapped in memory when they are first used, the threads of the search can share them.
+ * <br>The positions with castling rights or a possible 'enPassant' are not in the tables. The tables with pawns on
+ * both sides are not supported : the generator doesn't play the 'enPassant' captures after a pawn hop.
+ * @author Hitsuji
+ */
+public class Tablebase
+{
+	/** Maximum number of pieces (kings included) of a table */
+	public static final int MAX_PIECES = 4;
+	/** Result of a position not in the tables */
+	public static final int NO_ENTRY = Integer.MIN_VALUE;
+	/** Value of an impossible position in a table (two pieces on a square, king in check of the side not to move...) */
+	static final short INVALID = Short.MIN_VALUE;
+
+	/** Letter of each type of piece in the name of a table (see Bitboard.java) */
+	private static final String LETTERS = "PNBRQK";
+	/** Value of each type of piece to find the strongest side */
+	private static final int[] VALUES = {1, 3, 3, 5, 9, 0};
+	/** Types of piece in the order of the tables, with white then black as the strongest side (see order) */
+	private static final int[][] ORDERS = {order(false), order(true)};
+	/** Table not found in the directory */
+	private static final ByteBuffer MISSING = ByteBuffer.allocate(0);
+	/** Number of codes of a piece in the key of a table : none, then each type of piece of each side (see key) */
+	private static final int CODES = 11;
+	/** Number of keys of the tables of at most MAX_PIECES pieces */
+	private static final int KEYS = (int) Math.pow(CODES, MAX_PIECES - 2);
+
+	/** Directory of the files */
+	private Path directory;
+	/** Tables already mapped, by key (see key), null if they were never used */
+	private AtomicReferenceArray<ByteBuffer> tables;
+
+	/**
+	 * Constructor of the class
+	 * @param directory The directory of the files (they are named like 'KQK.tb')
+	 */
+	public Tablebase(final Path directory)
+	{
+		this.directory = directory;
+		this.tables = new AtomicReferenceArray<ByteBuffer>(KEYS);
+	}
+
+	/**
+	 * Get the directory of the files
+	 * @return The path of the directory
+	 */
+	public Path getDirectory()
+	{
+		return this.directory;
+	}
+
+	/**
+	 * Get the result of a position
+	 * @param board The position
+	 * @return The value for the side to move (see the description of the class), NO_ENTRY if it's not in the tables
+	 */
+	public int probe(final Chessboard board)
+	{
+		return this.probe(board, new long[12]);
+	}
+
+	/**
+	 * Get the result of a position without allocation, for the search
+	 * @param board The position
+	 * @param masks An array of 12 masks filled with the squares of the pieces, reused between the calls
+	 * @return The value for the side to move (see the description of the class), NO_ENTRY if it's not in the tables
+	 */
+	public int probe(final Chessboard board, final long[] masks)
+	{
+		if (Bitboard.count(board.getOccupied()) > MAX_PIECES || board.getCastlingRights() != 0) {
+			return NO_ENTRY;
+		}
+		Piece lastPawn = board.getLastPawn();
+		if (lastPawn != null) {
+			int passed = lastPawn.getPosition().getSquare() + (lastPawn.getColor() == ColorG.WHITE ? -8 : 8);
+			if ((Attacks.pawn(lastPawn.getColor(), passed) & board.getPieceMask(board.getSideToMove(), Bitboard.PAWN)) != 0) {
+				return NO_ENTRY;
+			}
+		}
+
+		for (int type = Bitboard.PAWN; type <= Bitboard.KING; type++) {
+			masks[Bitboard.index(ColorG.WHITE, type)] = board.getPieceMask(ColorG.WHITE, type);
+			masks[Bitboard.index(ColorG.BLACK, type)] = board.getPieceMask(ColorG.BLACK, type);
+		}
+		return this.probe(masks, board.getSideToMove());
+	}
+
+	/**
+	 * Get the result of a position given by the squares of its pieces
+	 * @param masks The squares of each type of piece of each color (see Bitboard.index)
+	 * @param side The color of the side to move
+	 * @return The value for the side to move, NO_ENTRY if the table is missing or the position is impossible
+	 */
+	int probe(final long[] masks, final ColorG side)
+	{
+		int white = material(masks, ColorG.WHITE), black = material(masks, ColorG.BLACK);
+		if (white == 0 && black == 0) {
+			// Only the kings
+			return 0;
+		}
+		boolean flip = isStronger(black, white);
+		ByteBuffer table = (flip ? this.table(black, white) : this.table(white, black));
+		if (table == MISSING) {
+			return NO_ENTRY;
+		}
+
+		// The pieces in the order of the table : the kings, then the pieces of the strongest side, then the others
+		long index = 0;
+		int shift = 1, square;
+		for (int piece : ORDERS[flip ? 1 : 0]) {
+			for (long mask = masks[piece]; mask != 0; mask &= mask - 1) {
+				square = Bitboard.first(mask);
+				index |= (long) (flip ? square ^ 56 : square) << shift;
+				shift += 6;
+			}
+		}
+		index |= ((side == ColorG.WHITE) == flip ? 1 : 0);
+		int res = table.getShort((int) index * 2);
+		return (res == INVALID ? NO_ENTRY : res);
+	}
+
+	/**
+	 * Find a table in the tables already mapped, or map its file
+	 * @param strong The material of the strongest side (see material)
+	 * @param weak The material of the other side
+	 * @return The mapped file, MISSING if it doesn't exist or isn't supported
+	 */
+	private ByteBuffer table(final int strong, final int weak)
+	{
+		int key = key(strong, weak);
+		if (key == KEYS) {
+			return MISSING;
+		}
+		ByteBuffer res = this.tables.get(key);
+		if (res == null) {
+			res = (isSupported(strong, weak) ? this.map(name(strong, weak)) : MISSING);
+			// Another thread may have mapped it first
+			if (!this.tables.compareAndSet(key, null, res)) {
+				res = this.tables.get(key);
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Map the file of a table
+	 * @param name The name of the table
+	 * @return The mapped file, MISSING if it doesn't exist
+	 */
+	private ByteBuffer map(final String name)
+	{
+		Path file = this.directory.resolve(name + ".tb");
+		if (!Files.exists(file)) {
+			return MISSING;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} catch (final IOException error) {
+			return MISSING;
+		}
+	}
+
+	/**
+	 * Forget a table, to map its file again at its next use (after its generation)
+	 * @param name The name of the table, the strongest side first
+	 */
+	void reload(final String name)
+	{
+		int[] material = parse(name);
+		this.tables.set(key(material[0], material[1]), null);
+	}
+
+	/**
+	 * Get the key of a table in the tables mapped : a code from 1 to CODES - 1 for each piece without the kings,
+	 * the pieces in a fixed order
+	 * @param strong The material of the strongest side (see material)
+	 * @param weak The material of the other side
+	 * @return The key, KEYS if there are more than MAX_PIECES pieces
+	 */
+	static int key(final int strong, final int weak)
+	{
+		int res = 0;
+		for (int type = Bitboard.PAWN; type < Bitboard.KING; type++) {
+			for (int i = 0; i < (strong >>> (2 * type) & 3); i++) {
+				res = Math.min(KEYS, res * CODES + 1 + type);
+			}
+			for (int i = 0; i < (weak >>> (2 * type) & 3); i++) {
+				res = Math.min(KEYS, res * CODES + 6 + type);
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Check if a table can be generated : the 'enPassant' captures are not played by the generator, so the tables
+	 * with pawns on both sides would be wrong
+	 * @param white The material of white (see material)
+	 * @param black The material of black
+	 * @return true if at most one side has pawns
+	 */
+	static boolean isSupported(final int white, final int black)
+	{
+		return (white >>> (2 * Bitboard.PAWN) & 3) == 0 || (black >>> (2 * Bitboard.PAWN) & 3) == 0;
+	}
+
+	/**
+	 * Get the pieces of a side without its king, 2 bits for the number of each type of piece
+	 * @param masks The squares of each type of piece of each color (see Bitboard.index)
+	 * @param color The color of the side
+	 * @return The material of the side
+	 */
+	static int material(final long[] masks, final ColorG color)
+	{
+		int res = 0;
+		for (int type = Bitboard.PAWN; type < Bitboard.KING; type++) {
+			res |= Math.min(3, Bitboard.count(masks[Bitboard.index(color, type)])) << (2 * type);
+		}
+		return res;
+	}
+
+	/**
+	 * Check if the pieces of a side are stronger than the other ones (the table of the strongest side is stored)
+	 * @param material The material of the side (see material)
+	 * @param other The material of the other side
+	 * @return true if the side is strictly stronger
+	 */
+	static boolean isStronger(final int material, final int other)
+	{
+		int value = 0, otherValue = 0;
+		for (int type = Bitboard.PAWN; type < Bitboard.KING; type++) {
+			value += VALUES[type] * (material >>> (2 * type) & 3);
+			otherValue += VALUES[type] * (other >>> (2 * type) & 3);
+		}
+		return (value != otherValue ? value > otherValue : material > other);
+	}
+
+	/**
+	 * Get the types of piece in the order of a table, the kings first, then the strongest side from the queen to the pawn
+	 * @param flip true if black is the strongest side
+	 * @return The indexes of the types of piece (see Bitboard.index)
+	 */
+	static int[] order(final boolean flip)
+	{
+		ColorG strong = (flip ? ColorG.BLACK : ColorG.WHITE), weak = (flip ? ColorG.WHITE : ColorG.BLACK);
+		int[] res = new int[12];
+		res[0] = Bitboard.index(strong, Bitboard.KING);
+		res[1] = Bitboard.index(weak, Bitboard.KING);
+		for (int type = Bitboard.QUEEN; type >= Bitboard.PAWN; type--) {
+			res[2 + Bitboard.QUEEN - type] = Bitboard.index(strong, type);
+			res[7 + Bitboard.QUEEN - type] = Bitboard.index(weak, type);
+		}
+		return res;
+	}
+
+	/**
+	 * Get the name of a table
+	 * @param white The material of white (see material)
+	 * @param black The material of black
+	 * @return The name (like 'KBNK')
+	 */
+	static String name(final int white, final int black)
+	{
+		StringBuilder res = new StringBuilder();
+		for (int material : new int[] {white, black}) {
+			res.append('K');
+			for (int type = Bitboard.QUEEN; type >= Bitboard.PAWN; type--) {
+				for (int i = 0; i < (material >>> (2 * type) & 3); i++) {
+					res.append(LETTERS.charAt(type));
+				}
+			}
+		}
+		return res.toString();
+	}
+
+	/**
+	 * Read the name of a table
+	 * @param name The name (like 'KBNK'), the letters of each side in any order
+	 * @return The material of white and the material of black (see material)
+	 * @throws IllegalArgumentException Error send if the name is not two kings with their pieces, has too many pieces
+	 *                                  or has pawns on both sides (see isSupported)
+	 */
+	static int[] parse(final String name)
+	{
+		String upper = name.toUpperCase();
+		int second = upper.indexOf('K', 1);
+		if (!upper.startsWith("K") || second < 0 || upper.indexOf('K', second + 1) >= 0 || upper.length() > MAX_PIECES) {
+			throw new IllegalArgumentException("The name of a table must be two kings and at most "
+											   + (MAX_PIECES - 2) + " pieces (like 'KQK') : " + name);
+		}
+		int[] res = new int[2];
+		int type;
+		for (int i = 1; i < upper.length(); i++) {
+			type = LETTERS.indexOf(upper.charAt(i));
+			if (type < 0) {
+				throw new IllegalArgumentException("Unknown piece '" + upper.charAt(i) + "' in the name " + name);
+			}
+			if (type != Bitboard.KING) {
+				res[i < second ? 0 : 1] += 1 << (2 * type);
+			}
+		}
+		if (!isSupported(res[0], res[1])) {
+			throw new IllegalArgumentException("The tables with pawns on both sides are not supported : " + name);
+		}
+		return res;
+	}
+}
@@ -0,0 +1,537 @@
+package model;
+
+import utils.ColorG;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generator of the endgame tablebases by retrograde analysis (see Tablebase.java)
+ * <br>Each position of a table is first solved if its side to move has no move, or if a capture or a promotion leads
+ * to a smaller table (generated before). Then, ply after ply, the positions lost in n plies make their predecessors
+ * won in n + 1 plies, and the positions won in n plies remove one move from each predecessor : a position with
+ * no move left that doesn't lose is lost. What is never solved is a draw.
+ * <br>The positions of each ply are shared between the threads, each one goes back from its part of the table.
+ * @author Hitsuji
+ */
+public class TablebaseGenerator
+{
+	/** Value of a position not solved yet, the longest mate out of the table is added (see Tablebase.INVALID) */
+	private static final short UNKNOWN = Tablebase.INVALID + 1;
+	/** Number of values used by the positions not solved yet */
+	private static final int UNKNOWN_RANGE = 1 << 14;
+	/** Added to the number of moves of a position that can go to a draw out of the table, so it's never lost */
+	private static final int ESCAPE = 64;
+	/** Number of parts of the table given to each thread at each step */
+	private static final int PARTS = 16;
+
+	/** Atomic access to the number of moves left of the positions */
+	private static final VarHandle COUNTERS = MethodHandles.arrayElementVarHandle(int[].class);
+
+	/** The tables used and written */
+	private Tablebase base;
+	/** Number of threads of the generation */
+	private int threads;
+	/** Threads solving the parts of the table */
+	private ExecutorService pool;
+
+	/** Pieces of the table generated, in the order of the index (see Bitboard.index) */
+	private int[] pieces;
+	/** Value of each position of the table generated */
+	private short[] values;
+	/** Number of moves of each position not leading to a known win of the opponent */
+	private int[] counters;
+
+	/**
+	 * Constructor of the class
+	 * @param base The tables, the files are written in its directory
+	 * @param threads The number of threads of the generation
+	 * @throws IllegalArgumentException Error send if the number of threads is not positive
+	 */
+	public TablebaseGenerator(final Tablebase base, final int threads)
+	{
+		if (threads <= 0) {
+			throw new IllegalArgumentException("The number of threads must be positive : " + threads);
+		}
+		this.base = base;
+		this.threads = threads;
+	}
+
+	/**
+	 * Generate a table and the smaller tables it needs, the tables already in the directory are kept
+	 * @param name The name of the table (like 'KQK')
+	 * @return The names of the tables generated
+	 * @throws IOException Error send if a file can't be written
+	 * @throws IllegalArgumentException Error send if the name is not a valid table (see Tablebase.parse)
+	 */
+	public ArrayList<String> generate(final String name) throws IOException
+	{
+		ArrayList<String> res = new ArrayList<String>();
+		this.pool = Executors.newFixedThreadPool(this.threads, task -> {
+			Thread thread = new Thread(task, "tablebase-generator");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			int[] material = Tablebase.parse(name);
+			this.generate(material[0], material[1], res);
+		} finally {
+			this.pool.shutdownNow();
+		}
+		return res;
+	}
+
+	/**
+	 * Generate a table after the smaller tables it needs
+	 * @param white The material of white (see Tablebase.material)
+	 * @param black The material of black
+	 * @param generated The names of the tables generated, filled
+	 * @throws IOException Error send if a file can't be written
+	 */
+	private void generate(final int white, final int black, final ArrayList<String> generated) throws IOException
+	{
+		boolean flip = Tablebase.isStronger(black, white);
+		int strong = (flip ? black : white), weak = (flip ? white : black);
+		String name = Tablebase.name(strong, weak);
+		Path file = this.base.getDirectory().resolve(name + ".tb");
+		if ((strong == 0 && weak == 0) || generated.contains(name) || Files.exists(file)) {
+			return;
+		}
+
+		// The tables reached by a capture or a promotion
+		for (int side = 0; side < 2; side++) {
+			int own = (side == 0 ? strong : weak), other = (side == 0 ? weak : strong);
+			for (int type = Bitboard.PAWN; type < Bitboard.KING; type++) {
+				if ((own >>> (2 * type) & 3) == 0) {
+					continue;
+				}
+				int less = own - (1 << (2 * type));
+				this.generate(less, other, generated);
+				if (type == Bitboard.PAWN) {
+					for (int promotion = Bitboard.KNIGHT; promotion <= Bitboard.QUEEN; promotion++) {
+						this.generate(less + (1 << (2 * promotion)), other, generated);
+					}
+				}
+			}
+		}
+
+		this.solve(strong, weak);
+		this.write(file);
+		this.base.reload(name);
+		generated.add(name);
+	}
+
+	/**
+	 * Solve all the positions of a table
+	 * @param white The material of white (the strongest side)
+	 * @param black The material of black
+	 * @throws IOException Error send if a thread fails
+	 */
+	private void solve(final int white, final int black) throws IOException
+	{
+		int[] order = new int[Tablebase.MAX_PIECES];
+		int nb = 0;
+		for (int piece : Tablebase.order(false)) {
+			int count = (piece % 6 == Bitboard.KING ? 1 : (piece < 6 ? white : black) >>> (2 * (piece % 6)) & 3);
+			for (int i = 0; i < count; i++) {
+				order[nb++] = piece;
+			}
+		}
+		this.pieces = Arrays.copyOf(order, nb);
+		int size = 2 << (6 * this.pieces.length);
+		this.values = new short[size];
+		this.counters = new int[size];
+
+		int pending = 0;
+		for (int result : this.run(size, (worker, start, end) -> worker.initialize(start, end))) {
+			pending = Math.max(pending, result);
+		}
+
+		// The positions solved at a ply solve their predecessors at the next one
+		boolean found = true;
+		for (int ply = 0; found || ply <= pending; ply++) {
+			final int current = ply;
+			found = false;
+			for (int result : this.run(size, (worker, start, end) -> worker.retrograde(start, end, current))) {
+				found |= (result != 0);
+			}
+		}
+
+		for (int i = 0; i < size; i++) {
+			if (isUnknown(this.values[i])) {
+				this.values[i] = 0;
+			}
+		}
+		this.counters = null;
+	}
+
+	/**
+	 * Write the table generated in a file
+	 * @param file The path of the file
+	 * @throws IOException Error send if the file can't be written
+	 */
+	private void write(final Path file) throws IOException
+	{
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+													StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.values.length * 2L);
+			for (short value : this.values) {
+				buffer.putShort(value);
+			}
+			buffer.force();
+		}
+		this.values = null;
+	}
+
+	/**
+	 * A step of the generation done on a part of the table
+	 */
+	private interface Step
+	{
+		/**
+		 * Do the step on a part of the table
+		 * @param worker The worker of the thread
+		 * @param start The first index of the part
+		 * @param end The index after the last one
+		 * @return The result of the part
+		 */
+		int run(Worker worker, int start, int end);
+	}
+
+	/**
+	 * Run a step of the generation on all the parts of the table with the threads
+	 * @param size The size of the table
+	 * @param step The step
+	 * @return The result of each part
+	 * @throws IOException Error send if a thread fails
+	 */
+	private int[] run(final int size, final Step step) throws IOException
+	{
+		int parts = this.threads * PARTS;
+		ArrayList<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+		for (int i = 0; i < parts; i++) {
+			int start = (int) ((long) size * i / parts), end = (int) ((long) size * (i + 1) / parts);
+			tasks.add(() -> step.run(new Worker(), start, end));
+		}
+
+		int[] res = new int[parts];
+		try {
+			int i = 0;
+			for (Future<Integer> future : this.pool.invokeAll(tasks)) {
+				res[i++] = future.get();
+			}
+		} catch (final InterruptedException error) {
+			Thread.currentThread().interrupt();
+			throw new IOException("The generation has been interrupted", error);
+		} catch (final ExecutionException error) {
+			throw new IOException("The generation failed : " + error.getCause(), error.getCause());
+		}
+		return res;
+	}
+
+	/**
+	 * Check if a value is a position not solved yet
+	 * @param value The value
+	 * @return true if the position is not solved
+	 */
+	private static boolean isUnknown(final short value)
+	{
+		return value >= UNKNOWN && value < UNKNOWN + UNKNOWN_RANGE;
+	}
+
+	/**
+	 * Generation of a part of the table by a thread, with its own arrays
+	 */
+	private class Worker
+	{
+		/** Square of each piece of the position */
+		private int[] squares;
+		/** Squares of each type of piece of each color, to probe the smaller tables */
+		private long[] masks;
+
+		/**
+		 * Constructor of the class
+		 */
+		Worker()
+		{
+			this.squares = new int[TablebaseGenerator.this.pieces.length];
+			this.masks = new long[12];
+		}
+
+		/**
+		 * Read the squares of the pieces of a position
+		 * @param index The index of the position
+		 * @return The side to move
+		 */
+		private ColorG decode(final int index)
+		{
+			for (int i = 0; i < this.squares.length; i++) {
+				this.squares[i] = index >>> (1 + 6 * i) & 63;
+			}
+			return ((index & 1) == 0 ? ColorG.WHITE : ColorG.BLACK);
+		}
+
+		/**
+		 * Get the index of the position of the squares
+		 * @param side The side to move
+		 * @return The index
+		 */
+		private int encode(final ColorG side)
+		{
+			int res = (side == ColorG.WHITE ? 0 : 1);
+			for (int i = 0; i < this.squares.length; i++) {
+				res |= this.squares[i] << (1 + 6 * i);
+			}
+			return res;
+		}
+
+		/**
+		 * Check if a square is attacked by the pieces of a color
+		 * @param square The square
+		 * @param color The color of the attackers
+		 * @param occupied The occupancy of the board
+		 * @param captured The piece captured and not on the board anymore (-1 for none)
+		 * @return true if a piece attacks the square
+		 */
+		private boolean isAttacked(final int square, final ColorG color, final long occupied, final int captured)
+		{
+			int[] pieces = TablebaseGenerator.this.pieces;
+			for (int i = 0; i < pieces.length; i++) {
+				if (i != captured && pieces[i] / 6 == color.ordinal()
+					&& (Attacks.piece(color, pieces[i] % 6, this.squares[i], occupied) & Bitboard.bit(square)) != 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Find the first values of a part of the table : impossible positions, mates, stalemates and the moves
+		 * leaving the table
+		 * @param start The first index of the part
+		 * @param end The index after the last one
+		 * @return The longest distance of a value found (the retrograde analysis must go at least this far)
+		 */
+		int initialize(final int start, final int end)
+		{
+			int[] pieces = TablebaseGenerator.this.pieces;
+			short[] values = TablebaseGenerator.this.values;
+			int res = 0;
+
+			for (int index = start; index < end; index++) {
+				ColorG side = this.decode(index);
+				ColorG enemy = (side == ColorG.WHITE ? ColorG.BLACK : ColorG.WHITE);
+				long occupied = 0;
+				boolean valid = true;
+				for (int i = 0; i < pieces.length && valid; i++) {
+					int y = Bitboard.squareY(this.squares[i]);
+					valid = (occupied & Bitboard.bit(this.squares[i])) == 0
+							&& (pieces[i] % 6 != Bitboard.PAWN || (y != 0 && y != 7));
+					occupied |= Bitboard.bit(this.squares[i]);
+				}
+				// The side not to move can't be in check (the kings can't touch each other either)
+				if (!valid || this.isAttacked(this.squares[enemy.ordinal()], side, occupied, -1)) {
+					values[index] = Tablebase.INVALID;
+					continue;
+				}
+
+				long own = 0;
+				for (int i = 0; i < pieces.length; i++) {
+					own |= (pieces[i] / 6 == side.ordinal() ? Bitboard.bit(this.squares[i]) : 0L);
+				}
+				int legal = 0, inside = 0, bestWin = Integer.MAX_VALUE, longestLoss = 0;
+				boolean escape = false;
+
+				for (int i = 0; i < pieces.length; i++) {
+					if (pieces[i] / 6 != side.ordinal()) {
+						continue;
+					}
+					int from = this.squares[i], type = pieces[i] % 6;
+					long targets;
+					if (type == Bitboard.PAWN) {
+						int forward = (side == ColorG.WHITE ? 8 : -8);
+						targets = Attacks.pawn(side, from) & occupied & ~own;
+						if ((occupied & Bitboard.bit(from + forward)) == 0) {
+							targets |= Bitboard.bit(from + forward);
+							int startLine = (side == ColorG.WHITE ? 1 : 6);
+							if (Bitboard.squareY(from) == startLine && (occupied & Bitboard.bit(from + 2 * forward)) == 0) {
+								targets |= Bitboard.bit(from + 2 * forward);
+							}
+						}
+					} else {
+						targets = Attacks.piece(side, type, from, occupied) & ~own;
+					}
+
+					for (; targets != 0; targets &= targets - 1) {
+						int to = Bitboard.first(targets);
+						int captured = -1;
+						for (int j = 0; j < pieces.length; j++) {
+							if (j != i && this.squares[j] == to) {
+								captured = j;
+							}
+						}
+						this.squares[i] = to;
+						long after = (occupied ^ Bitboard.bit(from)) | Bitboard.bit(to);
+						boolean check = this.isAttacked(this.squares[side.ordinal()], enemy, after, captured);
+						this.squares[i] = from;
+						if (check) {
+							continue;
+						}
+						legal++;
+
+						boolean promotion = (type == Bitboard.PAWN && (Bitboard.squareY(to) == 0 || Bitboard.squareY(to) == 7));
+						if (captured < 0 && !promotion) {
+							inside++;
+							continue;
+						}
+						// The move leaves the table, the value of the smaller table is already known
+						int last = (promotion ? Bitboard.KNIGHT : type);
+						for (int promoted = (promotion ? Bitboard.QUEEN : type); promoted >= last; promoted--) {
+							int value = this.probe(i, to, Bitboard.index(side, promoted), captured, enemy);
+							if (value < 0) {
+								bestWin = Math.min(bestWin, -value);
+							} else if (value == 0) {
+								escape = true;
+							} else {
+								longestLoss = Math.max(longestLoss, value);
+							}
+						}
+					}
+				}
+
+				if (legal == 0) {
+					// Mate or stalemate
+					values[index] = (short) (this.isAttacked(this.squares[side.ordinal()], enemy, occupied, -1) ? -1 : 0);
+				} else if (bestWin != Integer.MAX_VALUE) {
+					// Won at most in this distance, maybe sooner by a move inside the table
+					values[index] = (short) bestWin;
+					res = Math.max(res, bestWin);
+				} else if (inside == 0) {
+					values[index] = (short) (escape ? 0 : -longestLoss - 2);
+					res = Math.max(res, longestLoss + 1);
+				} else {
+					values[index] = (short) (UNKNOWN + longestLoss);
+					TablebaseGenerator.this.counters[index] = inside + (escape ? ESCAPE : 0);
+					res = Math.max(res, longestLoss + 1);
+				}
+			}
+			return res;
+		}
+
+		/**
+		 * Get the value of the position after a move leaving the table
+		 * @param moved The moving piece
+		 * @param to The square where it goes
+		 * @param piece The piece once moved (the promotion of a pawn)
+		 * @param captured The piece captured (-1 for none)
+		 * @param side The side to move after the move
+		 * @return The value for the side to move (see Tablebase.java)
+		 * @throws IllegalStateException Error send if the smaller table is missing
+		 */
+		private int probe(final int moved, final int to, final int piece, final int captured, final ColorG side)
+		{
+			int[] pieces = TablebaseGenerator.this.pieces;
+			Arrays.fill(this.masks, 0L);
+			for (int i = 0; i < pieces.length; i++) {
+				if (i == moved) {
+					this.masks[piece] |= Bitboard.bit(to);
+				} else if (i != captured) {
+					this.masks[pieces[i]] |= Bitboard.bit(this.squares[i]);
+				}
+			}
+			int res = TablebaseGenerator.this.base.probe(this.masks, side);
+			if (res == Tablebase.NO_ENTRY) {
+				throw new IllegalStateException("A smaller table is missing in " + TablebaseGenerator.this.base.getDirectory());
+			}
+			return res;
+		}
+
+		/**
+		 * Solve the predecessors of the positions solved at a ply, in a part of the table
+		 * <br>At an even ply the positions are lost and their predecessors won, at an odd ply the positions are won
+		 * and their predecessors lose a move.
+		 * @param start The first index of the part
+		 * @param end The index after the last one
+		 * @param ply The distance to the mate of the positions
+		 * @return 1 if a position of the ply was found in the part, else 0
+		 */
+		int retrograde(final int start, final int end, final int ply)
+		{
+			int[] pieces = TablebaseGenerator.this.pieces;
+			short[] values = TablebaseGenerator.this.values;
+			int[] counters = TablebaseGenerator.this.counters;
+			boolean lost = (ply % 2 == 0);
+			short target = (short) (lost ? -ply - 1 : ply);
+			int res = 0;
+
+			for (int index = start; index < end; index++) {
+				if (values[index] != target) {
+					continue;
+				}
+				res = 1;
+				ColorG side = this.decode(index);
+				// The side that just moved
+				ColorG mover = (side == ColorG.WHITE ? ColorG.BLACK : ColorG.WHITE);
+				long occupied = 0;
+				for (int square : this.squares) {
+					occupied |= Bitboard.bit(square);
+				}
+
+				for (int i = 0; i < pieces.length; i++) {
+					if (pieces[i] / 6 != mover.ordinal()) {
+						continue;
+					}
+					int from = this.squares[i], type = pieces[i] % 6;
+					long sources;
+					if (type == Bitboard.PAWN) {
+						int backward = (mover == ColorG.WHITE ? -8 : 8);
+						int y = Bitboard.squareY(from + backward);
+						sources = 0;
+						if (y != 0 && y != 7 && (occupied & Bitboard.bit(from + backward)) == 0) {
+							sources = Bitboard.bit(from + backward);
+							if (y == (mover == ColorG.WHITE ? 2 : 5) && (occupied & Bitboard.bit(from + 2 * backward)) == 0) {
+								sources |= Bitboard.bit(from + 2 * backward);
+							}
+						}
+					} else {
+						// The squares from where the piece could come are the ones it attacks
+						sources = Attacks.piece(mover, type, from, occupied) & ~occupied;
+					}
+
+					for (; sources != 0; sources &= sources - 1) {
+						this.squares[i] = Bitboard.first(sources);
+						int previous = this.encode(mover);
+						this.squares[i] = from;
+						short value = values[previous];
+						if (value == Tablebase.INVALID) {
+							continue;
+						}
+						if (lost) {
+							if (isUnknown(value) || value > ply + 1) {
+								values[previous] = (short) (ply + 1);
+							}
+						} else if (isUnknown(value) && (int) COUNTERS.getAndAdd(counters, previous, -1) == 1) {
+							// All the moves lose : the longest loss is chosen
+							values[previous] = (short) -(Math.max(ply + 1, value - UNKNOWN + 1) + 1);
+						}
+					}
+				}
+			}
+			return res;
+		}
+	}
+}
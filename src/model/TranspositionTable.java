@@ -0,0 +1,244 @@
+package model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Table of the results of the positions already searched, shared by the search threads
+ * <br>The entries are stored out of the Java heap (direct buffers), so a big table doesn't slow the garbage collector.
+ * The table has no lock : each entry stores the key xor its data, an entry written by two threads
+ * at the same time doesn't match its key anymore and is ignored.
+ * <br>The entries are grouped by 4 in buckets of 64 bytes (one cache line), a position can use any entry of its bucket.
+ * @author Hitsuji
+ */
+public class TranspositionTable
+{
+	/** Bound of an entry : no entry found */
+	public static final int NONE = 0;
+	/** Bound of an entry : the real score is at least the score (fail high) */
+	public static final int LOWER = 1;
+	/** Bound of an entry : the real score is at most the score (fail low) */
+	public static final int UPPER = 2;
+	/** Bound of an entry : the score is the real score */
+	public static final int EXACT = 3;
+
+	/** Size of an entry in bytes (key xor data, data) */
+	private static final int ENTRY_SIZE = 16;
+	/** Number of entries in a bucket */
+	private static final int BUCKET_ENTRIES = 4;
+	/** Size of a bucket in bytes */
+	private static final int BUCKET_SIZE = ENTRY_SIZE * BUCKET_ENTRIES;
+	/** Size of the biggest buffer in bytes (a buffer can't reach 2 GB) */
+	private static final int CHUNK_SIZE = 1 << 30;
+	/** Offset added to the depth to store it on 8 bits (the depth can be negative) */
+	private static final int DEPTH_OFFSET = 16;
+
+	/** Access to the longs of the buffers */
+	private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+	/** The buffers storing the buckets */
+	private ByteBuffer[] chunks;
+	/** Number of buckets in the table minus one (it's a power of 2) */
+	private long mask;
+	/** Number of bits of the index of a bucket inside its buffer */
+	private int chunkShift;
+	/** Size of the table in MB */
+	private int size;
+	/** Age of the current search (6 bits), the entries of older searches are replaced first */
+	private volatile int age;
+
+	/**
+	 * Constructor of the class
+	 * <br>A table bigger than the heap needs the JVM option -XX:MaxDirectMemorySize.
+	 * @param size The size of the table in MB (rounded down to a power of 2)
+	 * @throws IllegalArgumentException Error send if the size is not positive
+	 */
+	public TranspositionTable(final int size)
+	{
+		if (size <= 0) {
+			throw new IllegalArgumentException("The size of the table must be positive : " + size);
+		}
+		long buckets = Long.highestOneBit((long) size * (1 << 20) / BUCKET_SIZE);
+		long bytes = buckets * BUCKET_SIZE;
+		int chunkSize = (int) Math.min(bytes, CHUNK_SIZE);
+
+		this.chunks = new ByteBuffer[(int) (bytes / chunkSize)];
+		for (int i = 0; i < this.chunks.length; i++) {
+			this.chunks[i] = ByteBuffer.allocateDirect(chunkSize).order(ByteOrder.nativeOrder());
+		}
+		this.mask = buckets - 1;
+		this.chunkShift = Integer.numberOfTrailingZeros(chunkSize / BUCKET_SIZE);
+		this.size = (int) (bytes >>> 20);
+		this.age = 0;
+	}
+
+	/**
+	 * Get the size of the table
+	 * @return The size in MB
+	 */
+	public int getSize()
+	{
+		return this.size;
+	}
+
+	/**
+	 * Start a new search : the entries already stored become older
+	 */
+	public void newSearch()
+	{
+		this.age = (this.age + 1) & 0x3F;
+	}
+
+	/**
+	 * Remove all the entries (no search must use the table at the same time)
+	 */
+	public void clear()
+	{
+		for (ByteBuffer chunk : this.chunks) {
+			for (int i = 0; i < chunk.capacity(); i += 8) {
+				LONGS.set(chunk, i, 0L);
+			}
+		}
+		this.age = 0;
+	}
+
+	/**
+	 * Look for a position in the table
+	 * @param key The Zobrist key of the position (see Chessboard.getKey)
+	 * @return The data of the entry (see getMove, getScore, ...), 0 if the position is not in the table
+	 */
+	public long probe(final long key)
+	{
+		long bucket = key & this.mask;
+		ByteBuffer chunk = this.chunks[(int) (bucket >>> this.chunkShift)];
+		int offset = (int) (bucket & ((1L << this.chunkShift) - 1)) * BUCKET_SIZE;
+		long data;
+
+		for (int i = 0; i < BUCKET_ENTRIES; i++, offset += ENTRY_SIZE) {
+			data = (long) LONGS.getOpaque(chunk, offset + 8);
+			if (((long) LONGS.getOpaque(chunk, offset) ^ data) == key && data != 0) {
+				return data;
+			}
+		}
+		return 0L;
+	}
+
+	/**
+	 * Store the result of a search
+	 * <br>The entry of the same position is replaced, else the entry of the oldest and shallowest search of the bucket.
+	 * The scores of mate must be relative to the position, not to the root of the search.
+	 * @param key The Zobrist key of the position
+	 * @param move The best move found (Move.NONE if there's none, the move already stored is kept)
+	 * @param score The score of the position
+	 * @param depth The depth of the search
+	 * @param bound The bound of the score (LOWER, UPPER or EXACT)
+	 */
+	public void store(final long key, int move, final int score, final int depth, final int bound)
+	{
+		long bucket = key & this.mask;
+		ByteBuffer chunk = this.chunks[(int) (bucket >>> this.chunkShift)];
+		int start = (int) (bucket & ((1L << this.chunkShift) - 1)) * BUCKET_SIZE;
+		int current = this.age;
+		int offset, replaced = start, worst = Integer.MAX_VALUE, value;
+		long data;
+
+		for (int i = 0; i < BUCKET_ENTRIES; i++) {
+			offset = start + i * ENTRY_SIZE;
+			data = (long) LONGS.getOpaque(chunk, offset + 8);
+
+			if (((long) LONGS.getOpaque(chunk, offset) ^ data) == key || data == 0) {
+				if (move == Move.NONE && data != 0) {
+					move = getMove(data);
+				}
+				replaced = offset;
+				break;
+			}
+			// Each search of difference counts as much as 8 plies of depth
+			value = getDepth(data) - 8 * ((current - getAge(data)) & 0x3F);
+			if (value < worst) {
+				worst = value;
+				replaced = offset;
+			}
+		}
+
+		data = (move & 0xFFFFL)
+			 | ((score & 0xFFFFL) << 16)
+			 | ((long) ((depth + DEPTH_OFFSET) & 0xFF) << 32)
+			 | ((long) (bound & 3) << 40)
+			 | ((long) current << 42);
+		LONGS.setOpaque(chunk, replaced, key ^ data);
+		LONGS.setOpaque(chunk, replaced + 8, data);
+	}
+
+	/**
+	 * Give an estimation of the part of the table used by the current search
+	 * @return The number of entries used by the current search out of 1000
+	 */
+	public int hashfull()
+	{
+		ByteBuffer chunk = this.chunks[0];
+		int nb = Math.min(1000, chunk.capacity() / ENTRY_SIZE);
+		int res = 0;
+		long data;
+
+		for (int i = 0; i < nb; i++) {
+			data = (long) LONGS.getOpaque(chunk, i * ENTRY_SIZE + 8);
+			if (data != 0 && getAge(data) == this.age) {
+				res++;
+			}
+		}
+		return res * 1000 / nb;
+	}
+
+	/**
+	 * Get the best move of an entry
+	 * @param data The data of the entry
+	 * @return The packed move (see Move.java)
+	 */
+	public static int getMove(final long data)
+	{
+		return (int) (data & 0xFFFF);
+	}
+
+	/**
+	 * Get the score of an entry
+	 * @param data The data of the entry
+	 * @return The score
+	 */
+	public static int getScore(final long data)
+	{
+		return (short) (data >>> 16);
+	}
+
+	/**
+	 * Get the depth of an entry
+	 * @param data The data of the entry
+	 * @return The depth of the search
+	 */
+	public static int getDepth(final long data)
+	{
+		return (int) ((data >>> 32) & 0xFF) - DEPTH_OFFSET;
+	}
+
+	/**
+	 * Get the bound of an entry
+	 * @param data The data of the entry
+	 * @return LOWER, UPPER or EXACT (NONE if there's no entry)
+	 */
+	public static int getBound(final long data)
+	{
+		return (int) ((data >>> 40) & 3);
+	}
+
+	/**
+	 * Get the age of an entry
+	 * @param data The data of the entry
+	 * @return The age of the search that stored the entry
+	 */
+	private static int getAge(final long data)
+	{
+		return (int) ((data >>> 42) & 0x3F);
+	}
+}
@@ -0,0 +1,117 @@
+package model;
+
+import utils.ColorG;
+
+/**
+ * Random numbers to compute the 64 bits key of a position (Zobrist hashing)
+ * <br>The key is the xor of the number of each piece on its square, of the castling rights,
+ * of the 'enPassant' column and of the side to move, so a move only changes a few of them.
+ * The numbers come from a fixed seed, the keys are the same on every run.
+ * @author Hitsuji
+ */
+public final class Zobrist
+{
+	/**
+	 * Disabled default constructor
+	 */
+	private Zobrist() {}
+
+	/** Number of each type of piece of each color on each square (see Bitboard.index) */
+	private static final long[][] PIECES = new long[12][64];
+	/** Number of each combination of castling rights (see Chessboard.WHITE_LITTLE_CASTLE, ...) */
+	private static final long[] CASTLING = new long[16];
+	/** Number of each column where an 'enPassant' can be done */
+	private static final long[] EN_PASSANT = new long[8];
+	/** Number added when black has to play */
+	private static final long BLACK_TO_MOVE;
+
+	static {
+		long[] seed = {0x43686573734658L};
+		for (int i = 0; i < PIECES.length; i++) {
+			for (int square = 0; square < 64; square++) {
+				PIECES[i][square] = next(seed);
+			}
+		}
+
+		// Each right has its own number, a combination is the xor of its rights
+		long[] rights = {next(seed), next(seed), next(seed), next(seed)};
+		for (int i = 0; i < CASTLING.length; i++) {
+			for (int right = 0; right < 4; right++) {
+				if ((i & (1 << right)) != 0) {
+					CASTLING[i] ^= rights[right];
+				}
+			}
+		}
+
+		for (int i = 0; i < EN_PASSANT.length; i++) {
+			EN_PASSANT[i] = next(seed);
+		}
+		BLACK_TO_MOVE = next(seed);
+	}
+
+	/**
+	 * Get the number of a piece on a square
+	 * @param color The color of the piece
+	 * @param type The type of the piece (see Bitboard.java)
+	 * @param square The index of the square
+	 * @return The number to xor
+	 */
+	public static long piece(final ColorG color, final int type, final int square)
+	{
+		return PIECES[Bitboard.index(color, type)][square];
+	}
+
+	/**
+	 * Get the number of a piece on a square
+	 * @param piece The piece (null for an empty square)
+	 * @param square The index of the square
+	 * @return The number to xor (0 for an empty square)
+	 */
+	public static long piece(final Piece piece, final int square)
+	{
+		return (piece == null ? 0L : PIECES[Bitboard.index(piece.getColor(), piece.getType())][square]);
+	}
+
+	/**
+	 * Get the number of the castling rights
+	 * @param rights The rights (see Chessboard.WHITE_LITTLE_CASTLE, ...)
+	 * @return The number to xor
+	 */
+	public static long castling(final int rights)
+	{
+		return CASTLING[rights & 15];
+	}
+
+	/**
+	 * Get the number of the 'enPassant' column
+	 * @param x The x position of the pawn that can be taken
+	 * @return The number to xor
+	 */
+	public static long enPassant(final int x)
+	{
+		return EN_PASSANT[x];
+	}
+
+	/**
+	 * Get the number of the side to move
+	 * @param color The color of the player who plays the next move
+	 * @return The number to xor (0 for white)
+	 */
+	public static long side(final ColorG color)
+	{
+		return (color == ColorG.BLACK ? BLACK_TO_MOVE : 0L);
+	}
+
+	/**
+	 * Give the next random number (SplitMix64)
+	 * @param seed The state of the generator, updated
+	 * @return The random number
+	 */
+	private static long next(final long[] seed)
+	{
+		long z = (seed[0] += 0x9E3779B97F4A7C15L);
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
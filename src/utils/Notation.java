@@ -1,5 +1,9 @@
 package utils;
 
+import model.Bitboard;
+import model.Chessboard;
+import model.Move;
+import model.MoveGenerator;
 import model.Piece;
 import model.Position;
 
@@ -91,4 +95,95 @@ public class Notation
 	{
 		return (little ? "0-0" : "0-0-0") + (check ? "+" : "");
 	}
+	
+	/**
+	 * Play a move on a board and give its algebraic notation
+	 * @param board The position before the move, the move is played on it
+	 * @param move The move (see Move.java)
+	 * @return The notation of the move
+	 */
+	public static String playMove(final Chessboard board, final int move)
+	{
+		int flags = Move.getFlags(move);
+		int oldX = Bitboard.squareX(Move.getStart(move));
+		boolean capture = board.makeMove(move) != null;
+		Piece piece = board.getPiece(Move.getEnd(move));
+		boolean check = board.isInCheck(board.getSideToMove());
+
+		if (Move.isPromotion(move)) {
+			return promotionNotation(piece, capture, check, false, oldX);
+		} else if (flags == Move.LITTLE_CASTLE || flags == Move.BIG_CASTLE) {
+			return castleNotation(flags == Move.LITTLE_CASTLE, check);
+		}
+		return classicNotation(piece, capture, check, flags == Move.EN_PASSANT, oldX);
+	}
+	
+	/**
+	 * Find the legal move written in standard algebraic notation (like 'Nbd7', 'exd5', 'e8=Q+' or 'O-O')
+	 * @param board The position before the move
+	 * @param san The move, the annotations ('+', '#', '!', '?') are ignored
+	 * @return The move (see Move.java), Move.NONE if no legal move or several ones match
+	 */
+	public static int parseMove(final Chessboard board, final String san)
+	{
+		int length = san.length();
+		while (length > 0 && "+#!?".indexOf(san.charAt(length - 1)) >= 0) {
+			length--;
+		}
+		String text = san.substring(0, length);
+		int[] moves = new int[Move.MAX_MOVES];
+		int nb = MoveGenerator.generate(board, board.getSideToMove(), moves);
+
+		// Castlings are written with the letter O or the digit 0
+		if (text.equals("O-O") || text.equals("0-0") || text.equals("O-O-O") || text.equals("0-0-0")) {
+			int flags = (text.length() == 3 ? Move.LITTLE_CASTLE : Move.BIG_CASTLE);
+			for (int i = 0; i < nb; i++) {
+				if (Move.getFlags(moves[i]) == flags) {
+					return moves[i];
+				}
+			}
+			return Move.NONE;
+		}
+
+		int promotion = -1;
+		if (length >= 2 && "NBRQ".indexOf(text.charAt(length - 1)) >= 0) {
+			promotion = "NBRQ".indexOf(text.charAt(length - 1)) + Bitboard.KNIGHT;
+			length -= (text.charAt(length - 2) == '=' ? 2 : 1);
+		}
+		if (length < 2) {
+			return Move.NONE;
+		}
+		int type = "NBRQK".indexOf(text.charAt(0)) + 1;
+		int x = text.charAt(length - 2) - 'a', y = text.charAt(length - 1) - '1';
+		if (x < 0 || x > 7 || y < 0 || y > 7) {
+			return Move.NONE;
+		}
+
+		// The start square can be given partly (column and/or line) when several pieces can go to the square
+		int fromX = -1, fromY = -1;
+		for (int i = (type > 0 ? 1 : 0); i < length - 2; i++) {
+			char c = text.charAt(i);
+			if (c >= 'a' && c <= 'h') {
+				fromX = c - 'a';
+			} else if (c >= '1' && c <= '8') {
+				fromY = c - '1';
+			} else if (c != 'x') {
+				return Move.NONE;
+			}
+		}
+
+		int res = Move.NONE, start;
+		for (int i = 0; i < nb; i++) {
+			start = Move.getStart(moves[i]);
+			if (Move.getEnd(moves[i]) == Bitboard.square(x, y) && board.getPiece(start).getType() == type
+				&& (fromX < 0 || Bitboard.squareX(start) == fromX) && (fromY < 0 || Bitboard.squareY(start) == fromY)
+				&& (Move.isPromotion(moves[i]) ? Move.getPromotionType(moves[i]) == promotion : promotion < 0)) {
+				if (res != Move.NONE) {
+					return Move.NONE;
+				}
+				res = moves[i];
+			}
+		}
+		return res;
+	}
 }